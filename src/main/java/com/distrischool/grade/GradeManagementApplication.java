@@ -5,6 +5,7 @@
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Aplicação principal do microserviço de gestão de notas.
@@ -12,11 +13,13 @@
  * @EnableFeignClients - Habilita comunicação com outros microserviços via Feign
  * @EnableKafka - Habilita integração com Apache Kafka
  * @EnableCaching - Habilita cache do Spring
+ * @EnableScheduling - Habilita tarefas agendadas (relay do outbox de eventos)
  */
 @SpringBootApplication
 @EnableFeignClients
 @EnableKafka
 @EnableCaching
+@EnableScheduling
 public class GradeManagementApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,93 @@
+package com.distrischool.grade.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Propaga invalidações dos caches locais (L1) entre as réplicas via Redis pub/sub.
+ * A invalidação é aplicada imediatamente na instância que a publicou e, nas demais,
+ * ao receber a mensagem; mensagens perdidas são cobertas pelo TTL curto do L1.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationBus implements MessageListener {
+
+    public static final String CHANNEL = "grades:cache:invalidation";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, Consumer<Collection<String>>> handlers = new ConcurrentHashMap<>();
+
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate,
+                                ObjectMapper objectMapper,
+                                RedisMessageListenerContainer listenerContainer) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Registra quem invalida as entradas locais de um cache.
+     * Uma coleção vazia de chaves significa limpar o cache inteiro.
+     */
+    public void register(String cacheName, Consumer<Collection<String>> handler) {
+        handlers.put(cacheName, handler);
+    }
+
+    public void publish(String cacheName, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        dispatch(cacheName, keys);
+        send(new InvalidationMessage(instanceId, cacheName, List.copyOf(keys)));
+    }
+
+    public void publishClear(String cacheName) {
+        dispatch(cacheName, List.of());
+        send(new InvalidationMessage(instanceId, cacheName, List.of()));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            InvalidationMessage invalidation = objectMapper.readValue(message.getBody(), InvalidationMessage.class);
+            if (!instanceId.equals(invalidation.origin())) {
+                dispatch(invalidation.cache(), invalidation.keys());
+            }
+        } catch (Exception e) {
+            log.error("Erro ao processar invalidação de cache: {}", e.getMessage());
+        }
+    }
+
+    private void dispatch(String cacheName, Collection<String> keys) {
+        Consumer<Collection<String>> handler = handlers.get(cacheName);
+        if (handler != null) {
+            handler.accept(keys);
+        }
+    }
+
+    private void send(InvalidationMessage invalidation) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(invalidation));
+        } catch (Exception e) {
+            log.error("Erro ao publicar invalidação do cache {}: {}", invalidation.cache(), e.getMessage());
+        }
+    }
+
+    record InvalidationMessage(String origin, String cache, List<String> keys) {
+    }
+}
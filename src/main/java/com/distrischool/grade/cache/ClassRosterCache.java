@@ -0,0 +1,88 @@
+package com.distrischool.grade.cache;
+
+import com.distrischool.grade.dto.ClassInfoDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cache local dos dados de turma (incluindo a lista de alunos) obtidos do Class Service.
+ * Uma entrada é usada normalmente até o TTL; depois disso (ou após um evento de turma/matrícula)
+ * ela só é usada como fallback enquanto o Class Service estiver indisponível, até o stale TTL.
+ * A expiração por evento chega a uma só réplica (grupo Kafka do serviço) e é propagada às demais
+ * pelo {@link CacheInvalidationBus}.
+ */
+@Component
+public class ClassRosterCache {
+
+    private static final String BUS_NAME = "class-roster";
+
+    private final Cache<Long, Entry> entries;
+    private final long ttlNanos;
+    private final CacheInvalidationBus invalidationBus;
+
+    public ClassRosterCache(@Value("${microservice.class.cache.ttl:10m}") Duration ttl,
+                            @Value("${microservice.class.cache.stale-ttl:24h}") Duration staleTtl,
+                            @Value("${microservice.class.cache.max-size:5000}") long maxSize,
+                            CacheInvalidationBus invalidationBus) {
+        this.ttlNanos = ttl.toNanos();
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(staleTtl)
+                .build();
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(BUS_NAME, classIds -> classIds.forEach(classId -> expire(Long.valueOf(classId))));
+    }
+
+    /**
+     * Retorna a turma se a entrada ainda estiver dentro do TTL e não tiver sido invalidada
+     */
+    public ClassInfoDTO getFresh(Long classId) {
+        Entry entry = entries.getIfPresent(classId);
+        if (entry == null || entry.expired() || System.nanoTime() - entry.fetchedAtNanos() > ttlNanos) {
+            return null;
+        }
+        return entry.classInfo();
+    }
+
+    /**
+     * Retorna a última versão conhecida da turma, mesmo vencida, para uso com o Class Service fora do ar
+     */
+    public Entry getStale(Long classId) {
+        return entries.getIfPresent(classId);
+    }
+
+    public void put(Long classId, ClassInfoDTO classInfo) {
+        entries.put(classId, new Entry(classInfo, System.nanoTime(), false));
+    }
+
+    /**
+     * Força a próxima leitura a buscar a turma no Class Service, mantendo a entrada como fallback
+     */
+    public void expire(Long classId) {
+        entries.asMap().computeIfPresent(classId,
+                (id, entry) -> new Entry(entry.classInfo(), entry.fetchedAtNanos(), true));
+    }
+
+    /**
+     * Expira a turma nesta instância e nas demais réplicas
+     */
+    public void expireOnAllInstances(Long classId) {
+        invalidationBus.publish(BUS_NAME, List.of(String.valueOf(classId)));
+    }
+
+    public void evict(Long classId) {
+        entries.invalidate(classId);
+    }
+
+    public record Entry(ClassInfoDTO classInfo, long fetchedAtNanos, boolean expired) {
+
+        public Duration age() {
+            return Duration.ofNanos(System.nanoTime() - fetchedAtNanos);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.distrischool.grade.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Cache em dois níveis: Caffeine em memória (L1) na frente do Redis (L2).
+ * As leituras consultam o L1 antes de ir ao Redis; escritas e remoções passam pelos
+ * dois níveis e as remoções são propagadas às demais réplicas pelo {@link CacheInvalidationBus}.
+ * Os valores do L1 são compartilhados entre as requisições e não devem ser alterados.
+ */
+public class TwoLevelCache implements org.springframework.cache.Cache {
+
+    private static final String METRIC_CACHE_GETS = "grade_cache_gets_total";
+
+    private final org.springframework.cache.Cache remote;
+    private final Cache<String, ValueWrapper> local;
+    private final CacheInvalidationBus invalidationBus;
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+
+    public TwoLevelCache(org.springframework.cache.Cache remote,
+                         Cache<String, ValueWrapper> local,
+                         CacheInvalidationBus invalidationBus,
+                         MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.local = local;
+        this.invalidationBus = invalidationBus;
+        this.localHits = counter(meterRegistry, "l1", "hit");
+        this.localMisses = counter(meterRegistry, "l1", "miss");
+        this.remoteHits = counter(meterRegistry, "l2", "hit");
+        this.remoteMisses = counter(meterRegistry, "l2", "miss");
+
+        invalidationBus.register(getName(), keys -> {
+            if (keys.isEmpty()) {
+                local.invalidateAll();
+            } else {
+                local.invalidateAll(keys);
+            }
+        });
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        ValueWrapper value = local.getIfPresent(localKey);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        localMisses.increment();
+
+        value = remote.get(key);
+        if (value == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        local.put(localKey, value);
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        if (value == null) {
+            return null;
+        }
+        Object stored = value.get();
+        if (stored != null && type != null && !type.isInstance(stored)) {
+            throw new IllegalStateException("Valor em cache não é do tipo " + type.getName() + ": " + stored);
+        }
+        return (T) stored;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) {
+            return (T) value.get();
+        }
+        T loaded = remote.get(key, valueLoader);
+        local.put(localKey(key), new SimpleValueWrapper(loaded));
+        return loaded;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        local.put(localKey(key), new SimpleValueWrapper(value));
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        invalidationBus.publish(getName(), List.of(localKey(key)));
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        invalidationBus.publishClear(getName());
+    }
+
+    /**
+     * Chaves do L1 usam a mesma representação textual das chaves no Redis,
+     * para que as invalidações recebidas de outras réplicas encontrem a entrada
+     */
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder(METRIC_CACHE_GETS)
+                .description("Leituras dos caches de notas por nível (l1 = memória local, l2 = Redis)")
+                .tag("cache", getName())
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -10,6 +10,8 @@
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 
+import java.util.Optional;
+
 /**
  * Configuração do Feign para propagar tokens JWT entre microserviços
  */
@@ -19,10 +21,11 @@ public class FeignConfig {
 
     /**
      * Interceptor que adiciona o token JWT do contexto de segurança atual
-     * às requisições Feign para outros microserviços
+     * às requisições Feign para outros microserviços. Sem usuário no contexto
+     * (tarefas agendadas), usa o token de serviço
      */
     @Bean
-    public RequestInterceptor requestInterceptor() {
+    public RequestInterceptor requestInterceptor(ServiceTokenProvider serviceTokenProvider) {
         return new RequestInterceptor() {
             @Override
             public void apply(RequestTemplate template) {
@@ -38,7 +41,13 @@ public void apply(RequestTemplate template) {
                         log.debug("Token JWT adicionado à requisição Feign para: {}", template.url());
                     }
                 } else {
-                    log.warn("Nenhum token JWT encontrado no contexto de segurança para requisição Feign: {}", template.url());
+                    Optional<String> serviceToken = serviceTokenProvider.getToken();
+                    if (serviceToken.isPresent()) {
+                        template.header("Authorization", "Bearer " + serviceToken.get());
+                        log.debug("Token de serviço adicionado à requisição Feign para: {}", template.url());
+                    } else {
+                        log.warn("Nenhum token JWT encontrado no contexto de segurança para requisição Feign: {}", template.url());
+                    }
                 }
             }
         };
@@ -1,5 +1,11 @@
 package com.distrischool.grade.config;
 
+import com.distrischool.grade.cache.CacheInvalidationBus;
+import com.distrischool.grade.cache.TwoLevelCacheManager;
+import com.distrischool.grade.service.GradeCacheGenerations;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -8,10 +14,12 @@
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.Map;
 
 /**
  * Configuração do Redis para cache e operações de alta performance
@@ -33,28 +41,59 @@ public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connec
         template.setHashKeySerializer(new StringRedisSerializer());
         
         // Serializador para valores (JSON)
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
-        template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setValueSerializer(jsonRedisSerializer());
+        template.setHashValueSerializer(jsonRedisSerializer());
         
         template.afterPropertiesSet();
         return template;
     }
 
     /**
-     * Configuração do CacheManager para Spring Cache
+     * Container dos listeners pub/sub (invalidação dos caches locais entre réplicas)
      */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    /**
+     * Configuração do CacheManager para Spring Cache.
+     * Cada cache do Redis (L2) recebe um cache Caffeine local (L1) na frente; o hit ratio
+     * de cada nível é exposto em grade_cache_gets_total{tier, result}.
+     */
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     CacheInvalidationBus invalidationBus,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${microservice.cache.local.max-size:10000}") long localMaxSize,
+                                     @Value("${microservice.cache.local.ttl:60s}") Duration localTtl) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(30)) // TTL padrão de 30 minutos
                 .serializeKeysWith(org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair
                         .fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair
-                        .fromSerializer(new GenericJackson2JsonRedisSerializer()));
+                        .fromSerializer(jsonRedisSerializer()));
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
+                // Médias e resumos de turma também dependem dos dados de turma do Class Service
+                .withInitialCacheConfigurations(Map.of(
+                        GradeCacheGenerations.GRADES_CACHE, config,
+                        GradeCacheGenerations.AGGREGATES_CACHE, config.entryTtl(Duration.ofMinutes(10))))
                 .build();
+        // Não é registrado como bean, então os caches iniciais precisam ser carregados aqui
+        redisCacheManager.afterPropertiesSet();
+
+        return new TwoLevelCacheManager(redisCacheManager, invalidationBus, meterRegistry, localMaxSize, localTtl);
     }
-}
 
+    /**
+     * Serializador JSON com suporte a LocalDate/LocalDateTime (usados nos DTOs de notas)
+     */
+    private GenericJackson2JsonRedisSerializer jsonRedisSerializer() {
+        return new GenericJackson2JsonRedisSerializer()
+                .configure(objectMapper -> objectMapper.registerModule(new JavaTimeModule()));
+    }
+}
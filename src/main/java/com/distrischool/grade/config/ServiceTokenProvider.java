@@ -0,0 +1,79 @@
+package com.distrischool.grade.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Token de serviço (OAuth2 client credentials no Auth0) para chamadas Feign feitas sem usuário,
+ * como a sincronização agendada do índice de alunos. O token fica em memória até perto de expirar.
+ * Sem client-id configurado nenhum token é emitido e essas chamadas seguem sem Authorization.
+ */
+@Component
+@Slf4j
+public class ServiceTokenProvider {
+
+    private static final Duration EXPIRY_MARGIN = Duration.ofSeconds(60);
+
+    private final RestClient restClient = RestClient.create();
+    private final String tokenUri;
+    private final String clientId;
+    private final String clientSecret;
+    private final String audience;
+    private String token;
+    private Instant expiresAt = Instant.MIN;
+
+    public ServiceTokenProvider(@Value("${microservice.auth.service-client.token-uri:}") String tokenUri,
+                                @Value("${microservice.auth.service-client.client-id:}") String clientId,
+                                @Value("${microservice.auth.service-client.client-secret:}") String clientSecret,
+                                @Value("${microservice.auth.service-client.audience:}") String audience) {
+        this.tokenUri = tokenUri;
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.audience = audience;
+    }
+
+    /**
+     * Token de acesso do serviço, ou vazio se a credencial não estiver configurada ou o Auth0 falhar
+     */
+    public synchronized Optional<String> getToken() {
+        if (clientId.isBlank() || tokenUri.isBlank()) {
+            return Optional.empty();
+        }
+        if (token != null && Instant.now().isBefore(expiresAt.minus(EXPIRY_MARGIN))) {
+            return Optional.of(token);
+        }
+        try {
+            Map<?, ?> response = restClient.post()
+                    .uri(tokenUri)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of(
+                            "grant_type", "client_credentials",
+                            "client_id", clientId,
+                            "client_secret", clientSecret,
+                            "audience", audience))
+                    .retrieve()
+                    .body(Map.class);
+            Object accessToken = response != null ? response.get("access_token") : null;
+            if (accessToken == null) {
+                log.error("Resposta sem access_token ao obter token de serviço");
+                return Optional.empty();
+            }
+            Object expiresIn = response.get("expires_in");
+            token = accessToken.toString();
+            expiresAt = Instant.now().plusSeconds(expiresIn != null ? Long.parseLong(expiresIn.toString()) : 0);
+            log.debug("Token de serviço renovado - Expira em: {}", expiresAt);
+            return Optional.of(token);
+        } catch (Exception e) {
+            log.error("Erro ao obter token de serviço: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.distrischool.grade.controller;
+
+import com.distrischool.grade.dto.ApiResponse;
+import com.distrischool.grade.dto.AssessmentFinalizationStatusDTO;
+import com.distrischool.grade.service.AssessmentFinalizationService;
+import com.distrischool.grade.service.AssessmentService;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller REST para avaliações consolidadas (notas finais)
+ */
+@RestController
+@RequestMapping("/api/v1/assessments")
+@RequiredArgsConstructor
+@Slf4j
+public class AssessmentController {
+
+    private final AssessmentService assessmentService;
+    private final AssessmentFinalizationService assessmentFinalizationService;
+
+    /**
+     * Recalcula as notas finais do período (opcionalmente de uma única disciplina)
+     * POST /api/v1/assessments/recompute?academicYear=2025&academicSemester=1&subjectId=10
+     */
+    @PostMapping("/recompute")
+    @Timed(value = "assessments.recompute", description = "Time taken to recompute final grades")
+    public ResponseEntity<ApiResponse<Integer>> recomputeFinalGrades(
+        @RequestParam Integer academicYear,
+        @RequestParam Integer academicSemester,
+        @RequestParam(required = false) Long subjectId,
+        @RequestHeader(value = "X-User-Id", required = false) String userId,
+        @AuthenticationPrincipal Jwt jwt) {
+
+        String effectiveUserId = userId != null ? userId : (jwt != null ? jwt.getSubject() : "system");
+
+        log.info("Requisição para recalcular notas finais - Ano: {}, Semestre: {}, Disciplina: {} (by {})",
+                 academicYear, academicSemester, subjectId, effectiveUserId);
+
+        int affected = assessmentService.recomputeFinalGrades(academicYear, academicSemester, subjectId, effectiveUserId);
+        return ResponseEntity.ok(ApiResponse.success(affected, "Notas finais recalculadas com sucesso"));
+    }
+
+    /**
+     * Inicia (ou retoma) a finalização das avaliações do período em segundo plano
+     * POST /api/v1/assessments/finalization?academicYear=2025&academicSemester=1
+     */
+    @PostMapping("/finalization")
+    public ResponseEntity<ApiResponse<AssessmentFinalizationStatusDTO>> startFinalization(
+        @RequestParam Integer academicYear,
+        @RequestParam Integer academicSemester,
+        @RequestHeader(value = "X-User-Id", required = false) String userId,
+        @AuthenticationPrincipal Jwt jwt) {
+
+        String effectiveUserId = userId != null ? userId : (jwt != null ? jwt.getSubject() : "system");
+
+        log.info("Requisição para finalizar avaliações - Ano: {}, Semestre: {} (by {})",
+                 academicYear, academicSemester, effectiveUserId);
+
+        boolean started = assessmentFinalizationService.startFinalization(academicYear, academicSemester, effectiveUserId);
+        AssessmentFinalizationStatusDTO status = assessmentFinalizationService.getStatus(academicYear, academicSemester);
+        return ResponseEntity
+            .status(HttpStatus.ACCEPTED)
+            .body(ApiResponse.success(status, started
+                ? "Finalização iniciada"
+                : "Finalização já está em execução"));
+    }
+
+    /**
+     * Andamento da finalização das avaliações do período
+     * GET /api/v1/assessments/finalization?academicYear=2025&academicSemester=1
+     */
+    @GetMapping("/finalization")
+    public ResponseEntity<ApiResponse<AssessmentFinalizationStatusDTO>> getFinalizationStatus(
+        @RequestParam Integer academicYear,
+        @RequestParam Integer academicSemester) {
+
+        return ResponseEntity.ok(ApiResponse.success(
+            assessmentFinalizationService.getStatus(academicYear, academicSemester)));
+    }
+}
@@ -0,0 +1,49 @@
+package com.distrischool.grade.controller;
+
+import com.distrischool.grade.dto.ApiResponse;
+import com.distrischool.grade.dto.EvaluationRosterGradesRequestDTO;
+import com.distrischool.grade.dto.EvaluationRosterGradesResponseDTO;
+import com.distrischool.grade.service.GradeService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller REST para operações sobre avaliações
+ */
+@RestController
+@RequestMapping("/api/v1/evaluations")
+@RequiredArgsConstructor
+@Slf4j
+public class EvaluationController {
+
+    private final GradeService gradeService;
+
+    /**
+     * Lança as notas de toda a turma em uma avaliação
+     * PUT /api/v1/evaluations/{evaluationId}/grades
+     */
+    @PutMapping("/{evaluationId}/grades")
+    @Timed(value = "evaluations.grades.replace", description = "Time taken to sync a class roster grades")
+    public ResponseEntity<ApiResponse<EvaluationRosterGradesResponseDTO>> replaceEvaluationGrades(
+        @PathVariable Long evaluationId,
+        @Valid @RequestBody EvaluationRosterGradesRequestDTO request,
+        @RequestHeader(value = "X-User-Id", required = false) String userId,
+        @AuthenticationPrincipal Jwt jwt) {
+
+        String effectiveUserId = userId != null ? userId : (jwt != null ? jwt.getSubject() : "system");
+
+        log.info("Requisição para lançar notas da avaliação {} - Turma: {}, Alunos: {} (by {})",
+                 evaluationId, request.getClassId(), request.getGrades().size(), effectiveUserId);
+
+        EvaluationRosterGradesResponseDTO result =
+                gradeService.replaceEvaluationGrades(evaluationId, request, effectiveUserId);
+
+        return ResponseEntity.ok(ApiResponse.success(result, "Notas da avaliação sincronizadas com sucesso"));
+    }
+}
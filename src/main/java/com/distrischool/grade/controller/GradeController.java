@@ -1,25 +1,40 @@
 package com.distrischool.grade.controller;
 
 import com.distrischool.grade.dto.ApiResponse;
+import com.distrischool.grade.dto.BulkGradeResponseDTO;
+import com.distrischool.grade.dto.ClassAverageReconciliationDTO;
+import com.distrischool.grade.dto.ClassGradeSummaryBatchDTO;
 import com.distrischool.grade.dto.ClassGradeSummaryDTO;
+import com.distrischool.grade.dto.CursorPageDTO;
+import com.distrischool.grade.dto.GradeDistributionDTO;
 import com.distrischool.grade.dto.GradeRequestDTO;
 import com.distrischool.grade.dto.GradeResponseDTO;
+import com.distrischool.grade.dto.StudentRankingDTO;
+import com.distrischool.grade.entity.GradeDistributionCount;
+import com.distrischool.grade.service.GradeDistributionService;
+import com.distrischool.grade.service.GradeExportService;
 import com.distrischool.grade.service.GradeService;
 import io.micrometer.core.annotation.Timed;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Controller REST para gerenciamento de notas
@@ -31,6 +46,8 @@
 public class GradeController {
 
     private final GradeService gradeService;
+    private final GradeDistributionService gradeDistributionService;
+    private final GradeExportService gradeExportService;
 
     /**
      * Cria uma nova nota
@@ -55,6 +72,28 @@ public ResponseEntity<ApiResponse<GradeResponseDTO>> createGrade(
             .body(ApiResponse.success(grade, "Nota criada com sucesso"));
     }
 
+    /**
+     * Cria notas em lote; linhas inválidas não impedem a gravação das demais
+     * POST /api/v1/grades/bulk
+     */
+    @PostMapping("/bulk")
+    @Timed(value = "grades.create.bulk", description = "Time taken to create grades in bulk")
+    public ResponseEntity<ApiResponse<BulkGradeResponseDTO>> createGradesBulk(
+        @RequestBody List<GradeRequestDTO> requests,
+        @RequestHeader(value = "X-User-Id", required = false) String userId,
+        @AuthenticationPrincipal Jwt jwt) {
+
+        String effectiveUserId = userId != null ? userId : (jwt != null ? jwt.getSubject() : "system");
+
+        log.info("Requisição para criar notas em lote - Quantidade: {} (by {})",
+                 requests != null ? requests.size() : 0, effectiveUserId);
+
+        BulkGradeResponseDTO result = gradeService.createGradesBulk(requests, effectiveUserId);
+
+        return ResponseEntity.ok(ApiResponse.success(result, String.format(
+                "Lote processado: %d notas criadas, %d com erro", result.getCreated(), result.getFailed())));
+    }
+
     /**
      * Busca nota por ID
      * GET /api/v1/grades/{id}
@@ -69,36 +108,96 @@ public ResponseEntity<ApiResponse<GradeResponseDTO>> getGradeById(@PathVariable
 
     /**
      * Lista todas as notas com paginação
+     * (withTotal=false dispensa o total e retorna apenas se há próxima página)
      * GET /api/v1/grades
      */
     @GetMapping
     @Timed(value = "grades.list", description = "Time taken to list grades")
-    public ResponseEntity<ApiResponse<Page<GradeResponseDTO>>> getAllGrades(
+    public ResponseEntity<ApiResponse<Slice<GradeResponseDTO>>> getAllGrades(
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "20") int size,
         @RequestParam(defaultValue = "id") String sortBy,
-        @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
+        @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+        @RequestParam(defaultValue = "true") boolean withTotal) {
 
         log.info("Requisição para listar notas - Página: {}, Tamanho: {}", page, size);
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
-        Page<GradeResponseDTO> grades = gradeService.getAllGrades(pageable);
+        Slice<GradeResponseDTO> grades = gradeService.getAllGrades(pageable, withTotal);
 
         return ResponseEntity.ok(ApiResponse.success(grades));
     }
 
+    /**
+     * Lista todas as notas por cursor, sem contagem total (sincronizações)
+     * GET /api/v1/grades/cursor
+     */
+    @GetMapping("/cursor")
+    @Timed(value = "grades.list.cursor", description = "Time taken to list grades by cursor")
+    public ResponseEntity<ApiResponse<CursorPageDTO<GradeResponseDTO>>> getAllGradesByCursor(
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "100") int size) {
+
+        log.info("Requisição para listar notas por cursor - Tamanho: {}", size);
+        CursorPageDTO<GradeResponseDTO> grades = gradeService.getAllGradesByCursor(cursor, size);
+
+        return ResponseEntity.ok(ApiResponse.success(grades));
+    }
+
+    /**
+     * Exporta as notas em NDJSON ou CSV, em streaming e sem paginação (carga do data warehouse)
+     * GET /api/v1/grades/export
+     */
+    @GetMapping("/export")
+    @Timed(value = "grades.export", description = "Time taken to start a grades export")
+    public ResponseEntity<StreamingResponseBody> exportGrades(
+        @RequestParam(defaultValue = "ndjson") String format,
+        @RequestParam(required = false) Long classId,
+        @RequestParam(required = false) Integer academicYear,
+        @RequestParam(required = false) Integer academicSemester,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedSince) {
+
+        GradeExportService.Format exportFormat = GradeExportService.Format.parse(format);
+        log.info("Requisição para exportar notas - Formato: {}, Turma: {}, Ano: {}, Semestre: {}, Desde: {}",
+                 exportFormat, classId, academicYear, academicSemester, updatedSince);
+        StreamingResponseBody body = out -> gradeExportService.export(
+                exportFormat, classId, academicYear, academicSemester, updatedSince, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + exportFormat.getFileName() + "\"")
+                .body(body);
+    }
+
     /**
      * Busca notas por aluno
      * GET /api/v1/grades/student/{studentId}
      */
     @GetMapping("/student/{studentId}")
-    public ResponseEntity<ApiResponse<Page<GradeResponseDTO>>> getGradesByStudent(
+    public ResponseEntity<ApiResponse<Slice<GradeResponseDTO>>> getGradesByStudent(
         @PathVariable Long studentId,
         @RequestParam(defaultValue = "0") int page,
-        @RequestParam(defaultValue = "20") int size) {
+        @RequestParam(defaultValue = "20") int size,
+        @RequestParam(defaultValue = "true") boolean withTotal) {
 
         log.info("Requisição para buscar notas do aluno: {}", studentId);
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "gradeDate"));
-        Page<GradeResponseDTO> grades = gradeService.getGradesByStudent(studentId, pageable);
+        Slice<GradeResponseDTO> grades = gradeService.getGradesByStudent(studentId, pageable, withTotal);
+
+        return ResponseEntity.ok(ApiResponse.success(grades));
+    }
+
+    /**
+     * Busca notas por aluno por cursor
+     * GET /api/v1/grades/student/{studentId}/cursor
+     */
+    @GetMapping("/student/{studentId}/cursor")
+    public ResponseEntity<ApiResponse<CursorPageDTO<GradeResponseDTO>>> getGradesByStudentCursor(
+        @PathVariable Long studentId,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "100") int size) {
+
+        log.info("Requisição para buscar notas do aluno por cursor: {}", studentId);
+        CursorPageDTO<GradeResponseDTO> grades = gradeService.getGradesByStudentCursor(studentId, cursor, size);
 
         return ResponseEntity.ok(ApiResponse.success(grades));
     }
@@ -108,14 +207,15 @@ public ResponseEntity<ApiResponse<Page<GradeResponseDTO>>> getGradesByStudent(
      * GET /api/v1/grades/user/{userId}
      */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<ApiResponse<Page<GradeResponseDTO>>> getGradesByUserId(
+    public ResponseEntity<ApiResponse<Slice<GradeResponseDTO>>> getGradesByUserId(
         @PathVariable Long userId,
         @RequestParam(defaultValue = "0") int page,
-        @RequestParam(defaultValue = "20") int size) {
+        @RequestParam(defaultValue = "20") int size,
+        @RequestParam(defaultValue = "true") boolean withTotal) {
 
         log.info("Requisição para buscar notas do usuário: {}", userId);
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "gradeDate"));
-        Page<GradeResponseDTO> grades = gradeService.getGradesByUserId(userId, pageable);
+        Slice<GradeResponseDTO> grades = gradeService.getGradesByUserId(userId, pageable, withTotal);
 
         return ResponseEntity.ok(ApiResponse.success(grades));
     }
@@ -125,14 +225,31 @@ public ResponseEntity<ApiResponse<Page<GradeResponseDTO>>> getGradesByUserId(
      * GET /api/v1/grades/evaluation/{evaluationId}
      */
     @GetMapping("/evaluation/{evaluationId}")
-    public ResponseEntity<ApiResponse<Page<GradeResponseDTO>>> getGradesByEvaluation(
+    public ResponseEntity<ApiResponse<Slice<GradeResponseDTO>>> getGradesByEvaluation(
         @PathVariable Long evaluationId,
         @RequestParam(defaultValue = "0") int page,
-        @RequestParam(defaultValue = "20") int size) {
+        @RequestParam(defaultValue = "20") int size,
+        @RequestParam(defaultValue = "true") boolean withTotal) {
 
         log.info("Requisição para buscar notas da avaliação: {}", evaluationId);
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.ASC, "gradeValue"));
-        Page<GradeResponseDTO> grades = gradeService.getGradesByEvaluation(evaluationId, pageable);
+        Slice<GradeResponseDTO> grades = gradeService.getGradesByEvaluation(evaluationId, pageable, withTotal);
+
+        return ResponseEntity.ok(ApiResponse.success(grades));
+    }
+
+    /**
+     * Busca notas por avaliação por cursor
+     * GET /api/v1/grades/evaluation/{evaluationId}/cursor
+     */
+    @GetMapping("/evaluation/{evaluationId}/cursor")
+    public ResponseEntity<ApiResponse<CursorPageDTO<GradeResponseDTO>>> getGradesByEvaluationCursor(
+        @PathVariable Long evaluationId,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "100") int size) {
+
+        log.info("Requisição para buscar notas da avaliação por cursor: {}", evaluationId);
+        CursorPageDTO<GradeResponseDTO> grades = gradeService.getGradesByEvaluationCursor(evaluationId, cursor, size);
 
         return ResponseEntity.ok(ApiResponse.success(grades));
     }
@@ -154,6 +271,82 @@ public ResponseEntity<ApiResponse<BigDecimal>> calculateAverageGrade(
         return ResponseEntity.ok(ApiResponse.success(average, "Média calculada com sucesso"));
     }
 
+    /**
+     * Distribuição das notas (histograma e percentis) de uma avaliação ou turma.
+     * Sem scopeId retorna a distribuição somada de todas as avaliações/turmas do período.
+     * GET /api/v1/grades/distribution?scope=CLASS&scopeId=10&academicYear=2025&academicSemester=1
+     */
+    @GetMapping("/distribution")
+    @Timed(value = "grades.distribution", description = "Time taken to build a grade distribution")
+    public ResponseEntity<ApiResponse<GradeDistributionDTO>> getGradeDistribution(
+        @RequestParam GradeDistributionCount.Scope scope,
+        @RequestParam(required = false) Long scopeId,
+        @RequestParam(required = false) Integer academicYear,
+        @RequestParam(required = false) Integer academicSemester) {
+
+        log.info("Requisição para distribuição de notas - Escopo: {}, ID: {}, Ano: {}, Semestre: {}",
+                 scope, scopeId, academicYear, academicSemester);
+
+        GradeDistributionDTO distribution =
+                gradeDistributionService.getDistribution(scope, scopeId, academicYear, academicSemester);
+        return ResponseEntity.ok(ApiResponse.success(distribution));
+    }
+
+    /**
+     * Recalcula do zero as estatísticas usadas nas médias dos alunos
+     * POST /api/v1/grades/student-stats/rebuild
+     */
+    @PostMapping("/student-stats/rebuild")
+    @Timed(value = "grades.student_stats.rebuild", description = "Time taken to rebuild student term stats")
+    public ResponseEntity<ApiResponse<Integer>> rebuildStudentTermStats(
+        @RequestHeader(value = "X-User-Id", required = false) String userId,
+        @AuthenticationPrincipal Jwt jwt) {
+
+        String effectiveUserId = userId != null ? userId : (jwt != null ? jwt.getSubject() : "system");
+        log.info("Requisição para recalcular estatísticas de alunos (by {})", effectiveUserId);
+
+        int rows = gradeService.rebuildStudentTermStats();
+        return ResponseEntity.ok(ApiResponse.success(rows, "Estatísticas recalculadas com sucesso"));
+    }
+
+    /**
+     * Confere as médias de turma mantidas no Redis com o banco e corrige as divergências
+     * POST /api/v1/grades/classes/average/reconcile
+     */
+    @PostMapping("/classes/average/reconcile")
+    @Timed(value = "grades.classes.average.reconcile", description = "Time taken to reconcile class averages")
+    public ResponseEntity<ApiResponse<ClassAverageReconciliationDTO>> reconcileClassAverages(
+        @RequestHeader(value = "X-User-Id", required = false) String userId,
+        @AuthenticationPrincipal Jwt jwt) {
+
+        String effectiveUserId = userId != null ? userId : (jwt != null ? jwt.getSubject() : "system");
+        log.info("Requisição para reconciliar médias de turma (by {})", effectiveUserId);
+
+        ClassAverageReconciliationDTO result = gradeService.reconcileClassAverages();
+        return ResponseEntity.ok(ApiResponse.success(result, "Médias de turma reconciliadas com sucesso"));
+    }
+
+    /**
+     * Lista as notas agrupadas por aluno para várias turmas em uma única requisição.
+     * GET /api/v1/grades/classes/grades?classIds=1,2,3
+     */
+    @GetMapping("/classes/grades")
+    @Timed(value = "grades.classes.summary.batch", description = "Time taken to summarize grades of several classes")
+    public ResponseEntity<ApiResponse<ClassGradeSummaryBatchDTO>> getClassesGrades(
+        @RequestParam List<Long> classIds,
+        @RequestParam(required = false) Integer academicYear,
+        @RequestParam(required = false) Integer academicSemester,
+        @RequestParam(defaultValue = "3") int maxGradesPerStudent) {
+
+        log.info("Requisição para listar notas de {} turmas, Ano: {}, Semestre: {}, Limite: {}",
+                 classIds.size(), academicYear, academicSemester, maxGradesPerStudent);
+
+        ClassGradeSummaryBatchDTO summaries = gradeService.getClassesGradeDetails(
+                classIds, academicYear, academicSemester, maxGradesPerStudent);
+
+        return ResponseEntity.ok(ApiResponse.success(summaries, "Notas das turmas recuperadas com sucesso"));
+    }
+
     /**
      * Lista as notas agrupadas por aluno para uma turma específica.
      * GET /api/v1/grades/classes/{classId}/grades
@@ -213,6 +406,49 @@ public ResponseEntity<ApiResponse<BigDecimal>> calculateGlobalClassesAverage(
         return ResponseEntity.ok(ApiResponse.success(average, "Média global calculada com sucesso"));
     }
 
+    /**
+     * Ranking dos K alunos com maior média na turma.
+     * GET /api/v1/grades/classes/{classId}/ranking
+     */
+    @GetMapping("/classes/{classId}/ranking")
+    @Timed(value = "grades.classes.ranking", description = "Time taken to rank students of a class")
+    public ResponseEntity<ApiResponse<StudentRankingDTO>> getClassRanking(
+        @PathVariable Long classId,
+        @RequestParam(defaultValue = "10") int k,
+        @RequestParam(required = false) Integer academicYear,
+        @RequestParam(required = false) Integer academicSemester,
+        @RequestParam(defaultValue = "3") int maxGradesPerStudent) {
+
+        log.info("Requisição para ranking da turma: {}, K: {}, Ano: {}, Semestre: {}",
+                 classId, k, academicYear, academicSemester);
+
+        StudentRankingDTO ranking = gradeService.getClassRanking(
+                classId, academicYear, academicSemester, maxGradesPerStudent, k);
+
+        return ResponseEntity.ok(ApiResponse.success(ranking, "Ranking da turma calculado com sucesso"));
+    }
+
+    /**
+     * Ranking dos K alunos com maior média considerando todas as turmas.
+     * GET /api/v1/grades/classes/ranking
+     */
+    @GetMapping("/classes/ranking")
+    @Timed(value = "grades.classes.ranking.global", description = "Time taken to rank students across classes")
+    public ResponseEntity<ApiResponse<StudentRankingDTO>> getGlobalRanking(
+        @RequestParam(defaultValue = "10") int k,
+        @RequestParam(required = false) Integer academicYear,
+        @RequestParam(required = false) Integer academicSemester,
+        @RequestParam(defaultValue = "3") int maxGradesPerStudent) {
+
+        log.info("Requisição para ranking global - K: {}, Ano: {}, Semestre: {}",
+                 k, academicYear, academicSemester);
+
+        StudentRankingDTO ranking = gradeService.getGlobalRanking(
+                academicYear, academicSemester, maxGradesPerStudent, k);
+
+        return ResponseEntity.ok(ApiResponse.success(ranking, "Ranking global calculado com sucesso"));
+    }
+
     /**
      * Atualiza uma nota
      * PUT /api/v1/grades/{id}
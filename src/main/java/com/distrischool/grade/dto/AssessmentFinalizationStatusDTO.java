@@ -0,0 +1,28 @@
+package com.distrischool.grade.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Andamento da finalização das avaliações consolidadas de um período.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssessmentFinalizationStatusDTO {
+
+    private Integer academicYear;
+    private Integer academicSemester;
+
+    /**
+     * Indica se o job está em execução nesta instância
+     */
+    private Boolean running;
+
+    private Integer totalSubjects;
+    private Integer completedSubjects;
+    private Long finalizedAssessments;
+}
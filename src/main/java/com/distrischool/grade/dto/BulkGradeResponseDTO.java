@@ -0,0 +1,42 @@
+package com.distrischool.grade.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado do lançamento de notas em lote, com o desfecho de cada linha enviada.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkGradeResponseDTO {
+
+    private Integer totalRequested;
+    private Integer created;
+    private Integer failed;
+
+    @Builder.Default
+    private List<RowResultDTO> results = new ArrayList<>();
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowResultDTO {
+        /**
+         * Posição da nota na lista enviada (começando em 0)
+         */
+        private Integer index;
+        private Boolean success;
+        private Long gradeId;
+        private Long studentId;
+        private Long evaluationId;
+        private String message;
+    }
+}
@@ -0,0 +1,21 @@
+package com.distrischool.grade.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado da conferência das médias de turma mantidas no Redis com o Postgres.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassAverageReconciliationDTO {
+
+    private Long keysChecked;
+    private Long keysDiverged;
+    private Long studentsDiverged;
+    private Long durationMs;
+}
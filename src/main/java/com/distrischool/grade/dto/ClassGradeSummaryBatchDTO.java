@@ -0,0 +1,38 @@
+package com.distrischool.grade.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detalhamento das notas de várias turmas, na ordem em que foram solicitadas.
+ * Turmas que não puderam ser obtidas aparecem em {@code errors}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassGradeSummaryBatchDTO {
+
+    private Integer totalRequested;
+    private Integer failed;
+
+    @Builder.Default
+    private List<ClassGradeSummaryDTO> classes = new ArrayList<>();
+
+    @Builder.Default
+    private List<ClassErrorDTO> errors = new ArrayList<>();
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ClassErrorDTO {
+        private Long classId;
+        private String message;
+    }
+}
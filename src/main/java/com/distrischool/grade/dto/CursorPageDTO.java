@@ -0,0 +1,31 @@
+package com.distrischool.grade.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Página de uma listagem por cursor (keyset), sem contagem total.
+ * A próxima página é obtida repetindo a requisição com {@code nextCursor}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+
+    @Builder.Default
+    private List<T> content = new ArrayList<>();
+
+    private Integer size;
+    private Boolean hasNext;
+
+    /**
+     * Token opaco da próxima página (nulo na última)
+     */
+    private String nextCursor;
+}
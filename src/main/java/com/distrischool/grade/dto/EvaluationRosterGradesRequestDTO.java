@@ -0,0 +1,68 @@
+package com.distrischool.grade.dto;
+
+import com.distrischool.grade.entity.Grade.GradeStatus;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Notas de toda a turma para uma avaliação.
+ * A lista representa o estado completo desejado: alunos ausentes têm a nota removida.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EvaluationRosterGradesRequestDTO {
+
+    @NotNull(message = "ID da turma é obrigatório")
+    private Long classId;
+
+    @NotNull(message = "ID do professor é obrigatório")
+    private Long teacherId;
+
+    @NotNull(message = "Data da avaliação é obrigatória")
+    private LocalDate gradeDate;
+
+    @NotNull(message = "Ano letivo é obrigatório")
+    @Min(value = 2000, message = "Ano letivo deve ser a partir de 2000")
+    private Integer academicYear;
+
+    @NotNull(message = "Semestre letivo é obrigatório")
+    @Min(value = 1, message = "Semestre deve ser 1 ou 2")
+    @Max(value = 2, message = "Semestre deve ser 1 ou 2")
+    private Integer academicSemester;
+
+    @NotNull(message = "Lista de notas é obrigatória")
+    @Valid
+    @Builder.Default
+    private List<RosterGradeDTO> grades = new ArrayList<>();
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RosterGradeDTO {
+
+        @NotNull(message = "ID do aluno é obrigatório")
+        private Long studentId;
+
+        @NotNull(message = "Valor da nota é obrigatório")
+        @DecimalMin(value = "0.0", message = "Nota deve ser maior ou igual a 0")
+        @DecimalMax(value = "10.0", message = "Nota deve ser menor ou igual a 10")
+        @Digits(integer = 2, fraction = 2, message = "Nota deve ter no máximo 2 casas decimais")
+        private BigDecimal gradeValue;
+
+        private String notes;
+
+        private GradeStatus status;
+    }
+}
@@ -0,0 +1,32 @@
+package com.distrischool.grade.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado da sincronização das notas de uma turma em uma avaliação.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EvaluationRosterGradesResponseDTO {
+
+    private Long evaluationId;
+    private Long classId;
+    private Integer inserted;
+    private Integer updated;
+    private Integer deleted;
+    private Integer unchanged;
+
+    /**
+     * Notas vigentes da turma na avaliação após a sincronização
+     */
+    @Builder.Default
+    private List<GradeResponseDTO> grades = new ArrayList<>();
+}
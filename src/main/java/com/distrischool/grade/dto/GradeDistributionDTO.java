@@ -0,0 +1,55 @@
+package com.distrischool.grade.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Distribuição das notas de uma avaliação ou turma (ou de todas, no período):
+ * histograma em faixas de 1 ponto e percentis pelo método nearest-rank.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeDistributionDTO {
+
+    private String scope;
+    private Long scopeId;
+    private Integer academicYear;
+    private Integer academicSemester;
+
+    private Long totalGrades;
+    private BigDecimal average;
+    private BigDecimal min;
+    private BigDecimal p10;
+    private BigDecimal median;
+    private BigDecimal p90;
+    private BigDecimal max;
+
+    @Builder.Default
+    private List<BucketDTO> buckets = new ArrayList<>();
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BucketDTO {
+        /**
+         * Limite inferior (inclusivo)
+         */
+        private BigDecimal from;
+
+        /**
+         * Limite superior (exclusivo, exceto na última faixa que inclui 10)
+         */
+        private BigDecimal to;
+
+        private Long count;
+    }
+}
@@ -11,6 +11,9 @@
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+/**
+ * A ordem dos campos é a do construtor usado em {@code GradeRepository.RESPONSE_PROJECTION}
+ */
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,44 @@
+package com.distrischool.grade.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ranking dos K melhores alunos de uma turma (ou de todas as turmas, quando classId é nulo)
+ * pela média das notas mais recentes.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentRankingDTO {
+
+    private Long classId;
+    private Integer academicYear;
+    private Integer academicSemester;
+    private Integer maxGradesPerStudent;
+    private Integer k;
+
+    @Builder.Default
+    private List<EntryDTO> students = new ArrayList<>();
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EntryDTO {
+        /**
+         * Posição no ranking (começando em 1)
+         */
+        private Integer position;
+        private Long studentId;
+        private BigDecimal average;
+        private Integer gradesConsidered;
+    }
+}
@@ -26,6 +26,16 @@
 @ToString(callSuper = true)
 public class Assessment extends BaseEntity {
 
+    /**
+     * Nota mínima para aprovação direta
+     */
+    public static final BigDecimal APPROVAL_GRADE = new BigDecimal("7.0");
+
+    /**
+     * Nota mínima para recuperação (abaixo dela o aluno é reprovado)
+     */
+    public static final BigDecimal RECOVERY_GRADE = new BigDecimal("5.0");
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -141,7 +151,7 @@ public enum AssessmentStatus {
      */
     public boolean isApproved() {
         BigDecimal grade = finalGradeAfterRecovery != null ? finalGradeAfterRecovery : finalGrade;
-        return grade != null && grade.compareTo(new BigDecimal("7.0")) >= 0;
+        return grade != null && grade.compareTo(APPROVAL_GRADE) >= 0;
     }
 
     /**
@@ -150,8 +160,8 @@ public boolean isApproved() {
     public boolean isInRecovery() {
         BigDecimal grade = finalGrade;
         return grade != null 
-            && grade.compareTo(new BigDecimal("5.0")) >= 0 
-            && grade.compareTo(new BigDecimal("7.0")) < 0;
+            && grade.compareTo(RECOVERY_GRADE) >= 0 
+            && grade.compareTo(APPROVAL_GRADE) < 0;
     }
 
     /**
@@ -159,25 +169,24 @@ public boolean isInRecovery() {
      */
     public boolean isFailed() {
         BigDecimal grade = finalGradeAfterRecovery != null ? finalGradeAfterRecovery : finalGrade;
-        return grade != null && grade.compareTo(new BigDecimal("5.0")) < 0;
+        return grade != null && grade.compareTo(RECOVERY_GRADE) < 0;
     }
 
     /**
-     * Calcula e atualiza a nota final
+     * Atualiza o status a partir da nota final já calculada.
+     * O cálculo da nota final em lote é feito pelo AssessmentService (mesmos limites).
      */
     public void calculateFinalGrade() {
-        // Esta lógica será implementada no service que calculará baseado nas notas das avaliações
-        // Aqui é apenas um placeholder
         if (finalGradeAfterRecovery != null) {
-            if (finalGradeAfterRecovery.compareTo(new BigDecimal("7.0")) >= 0) {
+            if (finalGradeAfterRecovery.compareTo(APPROVAL_GRADE) >= 0) {
                 this.status = AssessmentStatus.APPROVED;
             } else {
                 this.status = AssessmentStatus.FAILED;
             }
         } else if (finalGrade != null) {
-            if (finalGrade.compareTo(new BigDecimal("7.0")) >= 0) {
+            if (finalGrade.compareTo(APPROVAL_GRADE) >= 0) {
                 this.status = AssessmentStatus.APPROVED;
-            } else if (finalGrade.compareTo(new BigDecimal("5.0")) >= 0) {
+            } else if (finalGrade.compareTo(RECOVERY_GRADE) >= 0) {
                 this.status = AssessmentStatus.RECOVERY;
             } else {
                 this.status = AssessmentStatus.FAILED;
@@ -0,0 +1,63 @@
+package com.distrischool.grade.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Progresso da finalização das avaliações consolidadas de uma disciplina em um período
+ */
+@Entity
+@Table(name = "assessment_finalization_checkpoints")
+@IdClass(AssessmentFinalizationCheckpoint.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AssessmentFinalizationCheckpoint {
+
+    @Id
+    @Column(name = "academic_year", nullable = false)
+    private Integer academicYear;
+
+    @Id
+    @Column(name = "academic_semester", nullable = false)
+    private Integer academicSemester;
+
+    @Id
+    @Column(name = "subject_id", nullable = false)
+    private Long subjectId;
+
+    /**
+     * Último ID de assessment processado
+     */
+    @Column(name = "last_assessment_id", nullable = false)
+    private Long lastAssessmentId;
+
+    @Column(name = "finalized_count", nullable = false)
+    private Integer finalizedCount;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public boolean isCompleted() {
+        return completedAt != null;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer academicYear;
+        private Integer academicSemester;
+        private Long subjectId;
+    }
+}
@@ -13,13 +13,8 @@
  * Representa uma nota atribuída a um aluno em uma avaliação.
  */
 @Entity
-@Table(name = "grades", indexes = {
-    @Index(name = "idx_grade_student_id", columnList = "student_id"),
-    @Index(name = "idx_grade_evaluation_id", columnList = "evaluation_id"),
-    @Index(name = "idx_grade_teacher_id", columnList = "teacher_id"),
-    @Index(name = "idx_grade_date", columnList = "grade_date"),
-    @Index(name = "idx_grade_status", columnList = "status")
-})
+// Índices parciais (deleted_at IS NULL) e ordenados ficam só na V10; o JPA não expressa o predicado nem a ordenação
+@Table(name = "grades")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -28,8 +23,13 @@
 @ToString(callSuper = true)
 public class Grade extends BaseEntity {
 
+    /**
+     * Usa a sequence do BIGSERIAL com alocação em blocos (pooled) para que o
+     * Hibernate consiga agrupar os INSERTs em lote (IDENTITY desabilita o batching)
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "grade_id_seq")
+    @SequenceGenerator(name = "grade_id_seq", sequenceName = "grades_id_seq", allocationSize = 50)
     private Long id;
 
     /**
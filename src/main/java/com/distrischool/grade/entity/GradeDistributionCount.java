@@ -0,0 +1,60 @@
+package com.distrischool.grade.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Quantidade de notas com um determinado valor (em centésimos) em uma avaliação
+ * ou turma, por período. Mantida pelo GradeDistributionService.
+ */
+@Entity
+@Table(name = "grade_distribution")
+@IdClass(GradeDistributionCount.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GradeDistributionCount {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scope", nullable = false, length = 20)
+    private Scope scope;
+
+    @Id
+    @Column(name = "scope_id", nullable = false)
+    private Long scopeId;
+
+    @Id
+    @Column(name = "academic_year", nullable = false)
+    private Integer academicYear;
+
+    @Id
+    @Column(name = "academic_semester", nullable = false)
+    private Integer academicSemester;
+
+    @Id
+    @Column(name = "grade_hundredths", nullable = false)
+    private Short gradeHundredths;
+
+    @Column(name = "grade_count", nullable = false)
+    private Integer gradeCount;
+
+    public enum Scope {
+        EVALUATION,   // Por avaliação
+        CLASS         // Por turma
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Scope scope;
+        private Long scopeId;
+        private Integer academicYear;
+        private Integer academicSemester;
+        private Short gradeHundredths;
+    }
+}
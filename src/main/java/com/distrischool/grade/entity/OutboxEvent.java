@@ -0,0 +1,59 @@
+package com.distrischool.grade.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento pendente de publicação no Kafka (transactional outbox).
+ * É gravado na mesma transação da alteração que o originou e removido
+ * pelo relay assim que o broker confirma o envio.
+ */
+@Entity
+@Table(name = "outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    /**
+     * Um nextval por evento, obtido no persist com o lock da linha do agregado já adquirido: a alteração
+     * seguinte do mesmo agregado só obtém seu ID depois do commit desta, então a ordem de ID (a do relay)
+     * segue a ordem de commit por chave. Blocos reservados antes do lock, por réplica, não garantiriam isso.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_id_seq")
+    @SequenceGenerator(name = "outbox_id_seq", sequenceName = "outbox_id_seq", allocationSize = 1)
+    private Long id;
+
+    /**
+     * Tipo do agregado de origem (ex.: grade)
+     */
+    @Column(name = "aggregate_type", nullable = false, length = 50)
+    private String aggregateType;
+
+    /**
+     * ID do agregado, usado como chave da mensagem no Kafka
+     */
+    @Column(name = "aggregate_id", nullable = false, length = 100)
+    private String aggregateId;
+
+    @Column(name = "topic", nullable = false, length = 255)
+    private String topic;
+
+    @Column(name = "event_type", nullable = false, length = 100)
+    private String eventType;
+
+    /**
+     * Evento serializado em JSON
+     */
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,58 @@
+package com.distrischool.grade.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Agregados das notas confirmadas de um aluno em um período letivo.
+ * Mantida pelo StudentTermStatsService a cada escrita de notas.
+ */
+@Entity
+@Table(name = "student_term_stats")
+@IdClass(StudentTermStats.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StudentTermStats {
+
+    @Id
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Id
+    @Column(name = "academic_year", nullable = false)
+    private Integer academicYear;
+
+    @Id
+    @Column(name = "academic_semester", nullable = false)
+    private Integer academicSemester;
+
+    @Column(name = "grade_sum", nullable = false, precision = 12, scale = 2)
+    private BigDecimal gradeSum;
+
+    @Column(name = "grade_count", nullable = false)
+    private Integer gradeCount;
+
+    @Column(name = "min_grade", precision = 4, scale = 2)
+    private BigDecimal minGrade;
+
+    @Column(name = "max_grade", precision = 4, scale = 2)
+    private BigDecimal maxGrade;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long studentId;
+        private Integer academicYear;
+        private Integer academicSemester;
+    }
+}
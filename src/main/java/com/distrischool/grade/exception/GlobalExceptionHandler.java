@@ -2,6 +2,8 @@
 
 import com.distrischool.grade.dto.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -21,6 +23,11 @@
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    /**
+     * Índice único parcial de notas ativas por (aluno, avaliação), criado na V10
+     */
+    private static final String GRADE_STUDENT_EVALUATION_CONSTRAINT = "uk_grade_student_evaluation";
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponse<Map<String, String>>> handleValidationExceptions(
             MethodArgumentNotValidException ex) {
@@ -61,6 +68,24 @@ public ResponseEntity<ApiResponse<Void>> handleBusinessException(
                 .body(ApiResponse.error(ex.getMessage()));
     }
 
+    /**
+     * Criações concorrentes da mesma nota passam pela verificação prévia e esbarram no índice único:
+     * a resposta é a mesma da verificação (400). Outras violações seguem como erro interno.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ApiResponse<Void>> handleDataIntegrityViolationException(
+            DataIntegrityViolationException ex, WebRequest request) {
+
+        if (ex.getCause() instanceof ConstraintViolationException violation
+                && GRADE_STUDENT_EVALUATION_CONSTRAINT.equals(violation.getConstraintName())) {
+            log.warn("Nota duplicada para aluno e avaliação: {}", violation.getMessage());
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Já existe uma nota para este aluno nesta avaliação"));
+        }
+        return handleGlobalException(ex, request);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiResponse<Void>> handleGlobalException(
             Exception ex, WebRequest request) {
@@ -4,6 +4,7 @@
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.Map;
 
@@ -30,5 +31,11 @@ public interface StudentServiceClient {
      */
     @GetMapping("/api/v1/students/{id}")
     ApiResponse<Void> checkStudentExists(@PathVariable Long id);
-}
 
+    /**
+     * Lista estudantes paginados (página do Spring Data em data: content, last)
+     * GET /api/v1/students?page={page}&size={size}
+     */
+    @GetMapping("/api/v1/students")
+    ApiResponse<Map<String, Object>> listStudents(@RequestParam("page") int page, @RequestParam("size") int size);
+}
@@ -1,6 +1,8 @@
 package com.distrischool.grade.kafka;
 
+import com.distrischool.grade.cache.ClassRosterCache;
 import com.distrischool.grade.kafka.DistriSchoolEvent;
+import com.distrischool.grade.service.StudentExistenceIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -17,9 +19,12 @@
 @Slf4j
 public class EventConsumer {
 
+    private final ClassRosterCache classRosterCache;
+    private final StudentExistenceIndex studentExistenceIndex;
+
     /**
      * Escuta eventos de estudantes criados
-     * Quando um estudante é criado, podemos inicializar estruturas relacionadas
+     * Quando um estudante é criado, ele entra no índice local de alunos
      */
     @KafkaListener(
         topics = "${microservice.kafka.topics.student-created:distrischool.student.created}",
@@ -32,9 +37,11 @@ public void consumeStudentCreatedEvent(DistriSchoolEvent event) {
         try {
             Map<String, Object> data = event.getData();
             if (data != null) {
-                Object studentId = data.get("studentId");
+                Object studentId = data.getOrDefault("studentId", data.get("id"));
                 log.info("Estudante criado - ID: {}", studentId);
-                // Aqui podemos adicionar lógica para inicializar registros de notas, etc.
+                if (studentId != null) {
+                    studentExistenceIndex.add(Long.valueOf(studentId.toString()));
+                }
             }
         } catch (Exception e) {
             log.error("Erro ao processar evento student.created: {}", e.getMessage(), e);
@@ -55,9 +62,11 @@ public void consumeStudentUpdatedEvent(DistriSchoolEvent event) {
         try {
             Map<String, Object> data = event.getData();
             if (data != null) {
-                Object studentId = data.get("studentId");
+                Object studentId = data.getOrDefault("studentId", data.get("id"));
                 log.info("Estudante atualizado - ID: {}", studentId);
-                // Aqui podemos adicionar lógica para sincronizar dados se necessário
+                if (studentId != null) {
+                    studentExistenceIndex.add(Long.valueOf(studentId.toString()));
+                }
             }
         } catch (Exception e) {
             log.error("Erro ao processar evento student.updated: {}", e.getMessage(), e);
@@ -78,9 +87,11 @@ public void consumeStudentDeletedEvent(DistriSchoolEvent event) {
         try {
             Map<String, Object> data = event.getData();
             if (data != null) {
-                Object studentId = data.get("studentId");
+                Object studentId = data.getOrDefault("studentId", data.get("id"));
                 log.info("Estudante deletado - ID: {}", studentId);
-                // Aqui podemos adicionar lógica para limpar dados relacionados se necessário
+                if (studentId != null) {
+                    studentExistenceIndex.remove(Long.valueOf(studentId.toString()));
+                }
             }
         } catch (Exception e) {
             log.error("Erro ao processar evento student.deleted: {}", e.getMessage(), e);
@@ -108,5 +119,65 @@ public void consumeTeacherCreatedEvent(DistriSchoolEvent event) {
             log.error("Erro ao processar evento teacher.created: {}", e.getMessage(), e);
         }
     }
-}
 
+    /**
+     * Escuta eventos de turmas para renovar o cache de turmas antes do TTL.
+     * O grupo é o do serviço (offsets preservados entre reinícios); a expiração é propagada
+     * às demais réplicas pelo {@link com.distrischool.grade.cache.CacheInvalidationBus}.
+     */
+    @KafkaListener(
+        topics = {
+            "${microservice.kafka.topics.class-updated:distrischool.class.updated}",
+            "${microservice.kafka.topics.class-deleted:distrischool.class.deleted}"
+        },
+        groupId = "${spring.application.name}-group",
+        containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void consumeClassEvent(DistriSchoolEvent event) {
+        log.info("Evento recebido - {}: {}", event.getEventType(), event.getEventId());
+
+        try {
+            Map<String, Object> data = event.getData();
+            // Em eventos da própria turma, o "id" é o da turma
+            Object classId = data != null ? data.getOrDefault("classId", data.get("id")) : null;
+            expireClassRoster(classId);
+        } catch (Exception e) {
+            log.error("Erro ao processar evento {}: {}", event.getEventType(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Escuta eventos de matrículas para renovar o cache da turma afetada.
+     * O "id" desses eventos é o da matrícula, então eventos sem classId são ignorados.
+     */
+    @KafkaListener(
+        topics = {
+            "${microservice.kafka.topics.enrollment-created:distrischool.enrollment.created}",
+            "${microservice.kafka.topics.enrollment-deleted:distrischool.enrollment.deleted}"
+        },
+        groupId = "${spring.application.name}-group",
+        containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void consumeEnrollmentEvent(DistriSchoolEvent event) {
+        log.info("Evento recebido - {}: {}", event.getEventType(), event.getEventId());
+
+        try {
+            Map<String, Object> data = event.getData();
+            Object classId = data != null ? data.get("classId") : null;
+            if (classId == null) {
+                log.warn("Evento de matrícula sem classId ignorado: {}", event.getEventId());
+                return;
+            }
+            expireClassRoster(classId);
+        } catch (Exception e) {
+            log.error("Erro ao processar evento {}: {}", event.getEventType(), e.getMessage(), e);
+        }
+    }
+
+    private void expireClassRoster(Object classId) {
+        if (classId != null) {
+            classRosterCache.expireOnAllInstances(Long.valueOf(classId.toString()));
+            log.info("Cache da turma expirado - ID: {}", classId);
+        }
+    }
+}
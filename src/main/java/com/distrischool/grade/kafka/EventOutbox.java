@@ -0,0 +1,51 @@
+package com.distrischool.grade.kafka;
+
+import com.distrischool.grade.entity.OutboxEvent;
+import com.distrischool.grade.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Registra eventos na tabela de outbox, na mesma transação da alteração que os originou.
+ * A publicação no Kafka é feita depois pelo {@link OutboxRelay}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EventOutbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Enfileira o evento para o tópico informado.
+     * O ID do agregado é usado como chave da mensagem, mantendo a ordem dos eventos de um mesmo agregado.
+     * Alterações de um agregado existente devem bloquear sua linha antes (ex.: {@code GradeRepository.lockById}),
+     * para que o ID do evento no outbox siga a ordem de commit.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String topic, String aggregateType, Object aggregateId, DistriSchoolEvent event) {
+        OutboxEvent outboxEvent = OutboxEvent.builder()
+                .aggregateType(aggregateType)
+                .aggregateId(String.valueOf(aggregateId))
+                .topic(topic)
+                .eventType(event.getEventType())
+                .payload(serialize(event))
+                .build();
+        outboxEventRepository.save(outboxEvent);
+        log.debug("Evento {} registrado no outbox para o tópico {}", event.getEventId(), topic);
+    }
+
+    private String serialize(DistriSchoolEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Erro ao serializar evento " + event.getEventType(), e);
+        }
+    }
+}
@@ -3,8 +3,11 @@
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -21,5 +24,18 @@ public void send(String topic, DistriSchoolEvent event) {
             log.error("Erro ao enviar evento para o tópico {}: {}", topic, e.getMessage(), e);
         }
     }
-}
 
+    /**
+     * Envia o evento com a chave informada e devolve a confirmação do broker,
+     * sem engolir erros (usado pelo relay do outbox, que decide o que reenviar).
+     */
+    public CompletableFuture<SendResult<String, DistriSchoolEvent>> sendAsync(String topic, String key,
+                                                                             DistriSchoolEvent event) {
+        try {
+            log.debug("Enviando evento {} para o tópico {} com chave {}", event.getEventType(), topic, key);
+            return kafkaTemplate.send(topic, key, event);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.distrischool.grade.kafka;
+
+import com.distrischool.grade.entity.OutboxEvent;
+import com.distrischool.grade.metrics.GradeMetricsRecorder;
+import com.distrischool.grade.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publica no Kafka os eventos gravados no outbox.
+ * Cada lote é lido em ordem de ID, enviado de uma vez e apenas o prefixo
+ * confirmado pelo broker é removido; o restante é reenviado na próxima execução,
+ * preservando a ordem dos eventos de um mesmo agregado (entrega at-least-once).
+ * Um evento só recebe ID depois do commit do evento anterior do mesmo agregado (lock da linha
+ * no {@link EventOutbox}), então um ID menor ainda invisível nunca é de um agregado já publicado no lote.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    /**
+     * Chave do advisory lock que garante um único relay ativo entre as instâncias
+     */
+    private static final long RELAY_LOCK_ID = 4_003_001L;
+
+    private static final String DIRECTION = "outbound";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final EventProducer eventProducer;
+    private final ObjectMapper objectMapper;
+    private final GradeMetricsRecorder metricsRecorder;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       EventProducer eventProducer,
+                       ObjectMapper objectMapper,
+                       GradeMetricsRecorder metricsRecorder,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${microservice.outbox.relay.batch-size:200}") int batchSize,
+                       @Value("${microservice.outbox.relay.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.eventProducer = eventProducer;
+        this.objectMapper = objectMapper;
+        this.metricsRecorder = metricsRecorder;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+    }
+
+    /**
+     * Drena o outbox em lotes enquanto houver lotes completos publicados com sucesso
+     */
+    @Scheduled(fixedDelayString = "${microservice.outbox.relay.fixed-delay-ms:500}")
+    public void relay() {
+        Integer published;
+        do {
+            published = transactionTemplate.execute(status -> relayBatch());
+        } while (published != null && published == batchSize);
+    }
+
+    /**
+     * Publica um lote e remove as linhas confirmadas. Retorna a quantidade removida.
+     */
+    private int relayBatch() {
+        if (!outboxEventRepository.tryAdvisoryXactLock(RELAY_LOCK_ID)) {
+            log.debug("Relay do outbox em execução em outra instância");
+            return 0;
+        }
+
+        List<OutboxEvent> batch = outboxEventRepository.findNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // Todos os envios do lote são disparados antes de aguardar as confirmações
+        List<CompletableFuture<?>> sends = new ArrayList<>(batch.size());
+        for (OutboxEvent outboxEvent : batch) {
+            sends.add(send(outboxEvent));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        int acknowledged = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent outboxEvent = batch.get(i);
+            if (!awaitAck(outboxEvent, sends.get(i), deadline)) {
+                break;
+            }
+            acknowledged++;
+        }
+
+        if (acknowledged > 0) {
+            List<Long> ids = batch.subList(0, acknowledged).stream().map(OutboxEvent::getId).toList();
+            outboxEventRepository.deleteAllByIdInBatch(ids);
+        }
+        log.debug("Relay do outbox - Publicados: {}, Pendentes no lote: {}", acknowledged, batch.size() - acknowledged);
+        return acknowledged;
+    }
+
+    private CompletableFuture<?> send(OutboxEvent outboxEvent) {
+        DistriSchoolEvent event;
+        try {
+            event = objectMapper.readValue(outboxEvent.getPayload(), DistriSchoolEvent.class);
+        } catch (Exception e) {
+            // Payload inválido nunca poderá ser publicado: descarta para não travar o outbox
+            log.error("Evento do outbox descartado por payload inválido - ID: {}, Payload: {}",
+                      outboxEvent.getId(), outboxEvent.getPayload(), e);
+            metricsRecorder.recordKafkaEvent(DIRECTION, outboxEvent.getEventType(), "discarded");
+            return CompletableFuture.completedFuture(null);
+        }
+        return eventProducer.sendAsync(outboxEvent.getTopic(), outboxEvent.getAggregateId(), event);
+    }
+
+    private boolean awaitAck(OutboxEvent outboxEvent, CompletableFuture<?> send, long deadline) {
+        try {
+            send.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            metricsRecorder.recordKafkaEvent(DIRECTION, outboxEvent.getEventType(), "success");
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("Erro ao publicar evento do outbox - ID: {}, Tópico: {}, Erro: {}",
+                      outboxEvent.getId(), outboxEvent.getTopic(), cause.getMessage());
+            metricsRecorder.recordKafkaEvent(DIRECTION, outboxEvent.getEventType(), "failure");
+            return false;
+        }
+    }
+}
@@ -2,8 +2,12 @@
 
 import com.distrischool.grade.entity.Grade.GradeStatus;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Registra métricas de domínio para o microserviço de notas.
  */
@@ -13,6 +17,12 @@ public class GradeMetricsRecorder {
     private static final String METRIC_GRADE_OPERATIONS = "grade_operations_total";
     private static final String METRIC_GRADE_STATUS_UPDATES = "grade_status_changes_total";
     private static final String METRIC_GRADE_EVENTS = "grade_events_total";
+    private static final String METRIC_REMOTE_VALIDATION = "grade_remote_validation";
+    private static final String METRIC_CLASS_ROSTER_CACHE = "grade_class_roster_cache_total";
+    private static final String METRIC_CLASS_ROSTER_STALENESS = "grade_class_roster_staleness";
+    private static final String METRIC_STUDENT_INDEX = "grade_student_index_lookups_total";
+    private static final String METRIC_CLASS_AVERAGE_INDEX = "grade_class_average_index_lookups_total";
+    private static final String METRIC_CLASS_AVERAGE_DIVERGENCE = "grade_class_average_divergent_keys_total";
 
     private final MeterRegistry meterRegistry;
 
@@ -46,6 +56,67 @@ public void recordKafkaEvent(String direction, String eventType, String outcome)
             "outcome", outcome
         ).increment();
     }
-}
 
+    /**
+     * Registra a duração das validações remotas por dependência
+     * (student, class ou combined para a validação paralela completa)
+     */
+    public void recordRemoteValidation(String dependency, String outcome, long durationNanos) {
+        Timer.builder(METRIC_REMOTE_VALIDATION)
+            .description("Duração das validações em outros microserviços")
+            .tag("dependency", dependency)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Registra o resultado das consultas ao cache de turmas (hit, miss ou stale)
+     */
+    public void recordClassRosterLookup(String result) {
+        meterRegistry.counter(
+            METRIC_CLASS_ROSTER_CACHE,
+            "result", result
+        ).increment();
+    }
+
+    /**
+     * Registra a idade dos dados de turma servidos do cache com o Class Service indisponível
+     */
+    public void recordClassRosterStaleness(Duration age) {
+        Timer.builder(METRIC_CLASS_ROSTER_STALENESS)
+            .description("Idade dos dados de turma servidos do cache com o Class Service indisponível")
+            .register(meterRegistry)
+            .record(age);
+    }
 
+    /**
+     * Registra as consultas ao índice local de alunos (hit, miss, cold ou error);
+     * apenas hit dispensa a chamada ao Student Service
+     */
+    public void recordStudentIndexLookup(String result) {
+        meterRegistry.counter(
+            METRIC_STUDENT_INDEX,
+            "result", result
+        ).increment();
+    }
+
+    /**
+     * Registra as leituras das médias de turma no Redis (hit, cold ou error);
+     * cold e error recorrem ao cálculo no banco
+     */
+    public void recordClassAverageIndexLookup(String result) {
+        meterRegistry.counter(
+            METRIC_CLASS_AVERAGE_INDEX,
+            "result", result
+        ).increment();
+    }
+
+    /**
+     * Registra as chaves de médias de turma corrigidas pela reconciliação
+     */
+    public void recordClassAverageDivergence(long keys) {
+        meterRegistry.counter(METRIC_CLASS_AVERAGE_DIVERGENCE).increment(keys);
+    }
+}
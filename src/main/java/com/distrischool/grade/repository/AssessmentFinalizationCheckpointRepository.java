@@ -0,0 +1,55 @@
+package com.distrischool.grade.repository;
+
+import com.distrischool.grade.entity.AssessmentFinalizationCheckpoint;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AssessmentFinalizationCheckpointRepository
+        extends JpaRepository<AssessmentFinalizationCheckpoint, AssessmentFinalizationCheckpoint.Key> {
+
+    /**
+     * Cria um checkpoint para cada disciplina do período com avaliações ainda não finalizadas.
+     * Checkpoints concluídos são reabertos (do início) se surgiram novas avaliações;
+     * checkpoints em andamento mantêm o progresso.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO assessment_finalization_checkpoints AS c " +
+           "(academic_year, academic_semester, subject_id) " +
+           "SELECT DISTINCT a.academic_year, a.academic_semester, a.subject_id FROM assessments a " +
+           "WHERE a.academic_year = :academicYear AND a.academic_semester = :academicSemester " +
+           "AND a.deleted_at IS NULL AND a.status <> 'FINALIZED' " +
+           "ON CONFLICT (academic_year, academic_semester, subject_id) DO UPDATE SET " +
+           "last_assessment_id = 0, completed_at = NULL, updated_at = CURRENT_TIMESTAMP " +
+           "WHERE c.completed_at IS NOT NULL",
+           nativeQuery = true)
+    int openCheckpoints(@Param("academicYear") Integer academicYear,
+                        @Param("academicSemester") Integer academicSemester);
+
+    List<AssessmentFinalizationCheckpoint> findByAcademicYearAndAcademicSemester(
+        Integer academicYear, Integer academicSemester);
+
+    List<AssessmentFinalizationCheckpoint> findByAcademicYearAndAcademicSemesterAndCompletedAtIsNull(
+        Integer academicYear, Integer academicSemester);
+
+    List<AssessmentFinalizationCheckpoint> findByCompletedAtIsNull();
+
+    /**
+     * Bloqueia o checkpoint até o fim da transação do bloco; outra instância
+     * processando a mesma disciplina aguarda e continua do novo ponto.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM AssessmentFinalizationCheckpoint c WHERE c.academicYear = :academicYear " +
+           "AND c.academicSemester = :academicSemester AND c.subjectId = :subjectId")
+    Optional<AssessmentFinalizationCheckpoint> lockCheckpoint(@Param("academicYear") Integer academicYear,
+                                                             @Param("academicSemester") Integer academicSemester,
+                                                             @Param("subjectId") Long subjectId);
+}
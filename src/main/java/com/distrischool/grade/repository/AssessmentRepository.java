@@ -5,10 +5,12 @@
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,8 +46,67 @@ List<Assessment> findSubjectAssessments(@Param("subjectId") Long subjectId,
     
     @Query("SELECT a FROM Assessment a WHERE a.deletedAt IS NULL")
     Page<Assessment> findAllNotDeleted(Pageable pageable);
+
+    /**
+     * Próximo bloco de avaliações da disciplina no período, em ordem de ID (use um Pageable sem ordenação)
+     */
+    @Query("SELECT a FROM Assessment a WHERE a.deletedAt IS NULL " +
+           "AND a.subjectId = :subjectId " +
+           "AND a.academicYear = :academicYear " +
+           "AND a.academicSemester = :academicSemester " +
+           "AND a.id > :afterId ORDER BY a.id")
+    List<Assessment> findFinalizationChunk(@Param("subjectId") Long subjectId,
+                                           @Param("academicYear") Integer academicYear,
+                                           @Param("academicSemester") Integer academicSemester,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
     
     long countByStudentIdAndAcademicYearAndAcademicSemester(
         Long studentId, Integer academicYear, Integer academicSemester);
-}
 
+    /**
+     * Recalcula em lote a nota final de todos os alunos de um período (ou de uma disciplina no período).
+     * A nota final é a média das notas confirmadas ponderada pelo peso das avaliações, com cada nota
+     * normalizada pelo max_score da avaliação para a escala 0-10. Avaliações de recuperação e canceladas
+     * não entram no cálculo. As linhas são gravadas via upsert na restrição única
+     * (student_id, subject_id, academic_year, academic_semester); avaliações finalizadas ou removidas
+     * não são alteradas. Retorna a quantidade de linhas inseridas ou atualizadas.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO assessments AS a (student_id, subject_id, teacher_id, final_grade, status, " +
+           "academic_year, academic_semester, created_by, updated_by) " +
+           "SELECT f.student_id, f.subject_id, f.teacher_id, f.final_grade, " +
+           "CASE WHEN f.final_grade >= :approvalGrade THEN 'APPROVED' " +
+           "WHEN f.final_grade >= :recoveryGrade THEN 'RECOVERY' ELSE 'FAILED' END, " +
+           "f.academic_year, f.academic_semester, :updatedBy, :updatedBy " +
+           "FROM (" +
+           "SELECT g.student_id, e.subject_id, e.academic_year, e.academic_semester, " +
+           "(ARRAY_AGG(e.teacher_id ORDER BY e.evaluation_date DESC, e.id DESC))[1] AS teacher_id, " +
+           "LEAST(10, ROUND(SUM(g.grade_value * 10 / e.max_score * e.weight) / SUM(e.weight), 2)) AS final_grade " +
+           "FROM grades g JOIN evaluations e ON e.id = g.evaluation_id " +
+           "WHERE g.deleted_at IS NULL AND g.status = 'CONFIRMED' " +
+           "AND e.deleted_at IS NULL AND e.status <> 'CANCELLED' AND e.evaluation_type <> 'RECOVERY' " +
+           "AND e.academic_year = :academicYear AND e.academic_semester = :academicSemester " +
+           "AND (CAST(:subjectId AS BIGINT) IS NULL OR e.subject_id = CAST(:subjectId AS BIGINT)) " +
+           "GROUP BY g.student_id, e.subject_id, e.academic_year, e.academic_semester " +
+           "HAVING SUM(e.weight) > 0" +
+           ") f " +
+           "ON CONFLICT (student_id, subject_id, academic_year, academic_semester) DO UPDATE SET " +
+           "final_grade = EXCLUDED.final_grade, " +
+           "teacher_id = EXCLUDED.teacher_id, " +
+           "status = CASE WHEN a.final_grade_after_recovery IS NULL THEN EXCLUDED.status " +
+           "WHEN a.final_grade_after_recovery >= :approvalGrade THEN 'APPROVED' ELSE 'FAILED' END, " +
+           "updated_at = CURRENT_TIMESTAMP, " +
+           "updated_by = EXCLUDED.updated_by " +
+           "WHERE a.deleted_at IS NULL AND a.status <> 'FINALIZED' " +
+           "AND (a.final_grade IS DISTINCT FROM EXCLUDED.final_grade OR a.teacher_id <> EXCLUDED.teacher_id " +
+           "OR a.status <> CASE WHEN a.final_grade_after_recovery IS NULL THEN EXCLUDED.status " +
+           "WHEN a.final_grade_after_recovery >= :approvalGrade THEN 'APPROVED' ELSE 'FAILED' END)",
+           nativeQuery = true)
+    int upsertFinalGrades(@Param("academicYear") Integer academicYear,
+                          @Param("academicSemester") Integer academicSemester,
+                          @Param("subjectId") Long subjectId,
+                          @Param("approvalGrade") BigDecimal approvalGrade,
+                          @Param("recoveryGrade") BigDecimal recoveryGrade,
+                          @Param("updatedBy") String updatedBy);
+}
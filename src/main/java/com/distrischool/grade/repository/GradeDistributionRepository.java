@@ -0,0 +1,54 @@
+package com.distrischool.grade.repository;
+
+import com.distrischool.grade.entity.GradeDistributionCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface GradeDistributionRepository
+        extends JpaRepository<GradeDistributionCount, GradeDistributionCount.Key> {
+
+    /**
+     * Soma delta (positivo ou negativo) ao contador do valor da nota
+     */
+    @Modifying
+    @Query(value = "INSERT INTO grade_distribution AS d (scope, scope_id, academic_year, academic_semester, " +
+           "grade_hundredths, grade_count) " +
+           "VALUES (:scope, :scopeId, :academicYear, :academicSemester, :gradeHundredths, :delta) " +
+           "ON CONFLICT (scope, scope_id, academic_year, academic_semester, grade_hundredths) DO UPDATE SET " +
+           "grade_count = d.grade_count + EXCLUDED.grade_count",
+           nativeQuery = true)
+    void increment(@Param("scope") String scope,
+                   @Param("scopeId") Long scopeId,
+                   @Param("academicYear") Integer academicYear,
+                   @Param("academicSemester") Integer academicSemester,
+                   @Param("gradeHundredths") short gradeHundredths,
+                   @Param("delta") int delta);
+
+    /**
+     * Histograma somado (merge) de um escopo: uma avaliação/turma ou, com scopeId nulo,
+     * todas do escopo; ano e semestre nulos somam todos os períodos.
+     */
+    @Query(value = "SELECT d.grade_hundredths AS gradeHundredths, SUM(d.grade_count) AS gradeCount " +
+           "FROM grade_distribution d WHERE d.scope = :scope " +
+           "AND (CAST(:scopeId AS BIGINT) IS NULL OR d.scope_id = CAST(:scopeId AS BIGINT)) " +
+           "AND (CAST(:academicYear AS INTEGER) IS NULL OR d.academic_year = CAST(:academicYear AS INTEGER)) " +
+           "AND (CAST(:academicSemester AS INTEGER) IS NULL OR d.academic_semester = CAST(:academicSemester AS INTEGER)) " +
+           "GROUP BY d.grade_hundredths HAVING SUM(d.grade_count) > 0 " +
+           "ORDER BY d.grade_hundredths",
+           nativeQuery = true)
+    List<GradeCount> findMergedCounts(@Param("scope") String scope,
+                                      @Param("scopeId") Long scopeId,
+                                      @Param("academicYear") Integer academicYear,
+                                      @Param("academicSemester") Integer academicSemester);
+
+    interface GradeCount {
+        Integer getGradeHundredths();
+        Long getGradeCount();
+    }
+}
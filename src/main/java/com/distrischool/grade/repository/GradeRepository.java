@@ -1,21 +1,48 @@
 package com.distrischool.grade.repository;
 
+import com.distrischool.grade.dto.GradeResponseDTO;
 import com.distrischool.grade.entity.Grade;
 import com.distrischool.grade.entity.Grade.GradeStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface GradeRepository extends JpaRepository<Grade, Long> {
 
+    /**
+     * Projeção JPQL direto no DTO de resposta (sem entidade gerenciada nem colunas de exclusão).
+     * Os argumentos seguem a ordem dos campos de {@link GradeResponseDTO}.
+     */
+    String RESPONSE_PROJECTION = "new com.distrischool.grade.dto.GradeResponseDTO(" +
+            "g.id, g.studentId, g.teacherId, g.classId, g.evaluationId, g.gradeValue, g.gradeDate, g.notes, " +
+            "g.status, g.isAutomatic, g.postedAt, g.academicYear, g.academicSemester, " +
+            "g.createdAt, g.updatedAt, g.createdBy, g.updatedBy)";
+
+    /**
+     * Colunas lidas pelo resumo de turma (projeção {@link GradeSnapshot})
+     */
+    String SNAPSHOT_COLUMNS = "g.id AS id, g.student_id AS studentId, g.class_id AS classId, " +
+            "g.evaluation_id AS evaluationId, g.grade_value AS gradeValue, g.grade_date AS gradeDate, " +
+            "g.academic_year AS academicYear, g.academic_semester AS academicSemester";
+
     @Query("SELECT g FROM Grade g WHERE g.deletedAt IS NULL AND g.studentId = :studentId")
     Page<Grade> findByStudentId(@Param("studentId") Long studentId, Pageable pageable);
     
@@ -25,6 +52,22 @@ public interface GradeRepository extends JpaRepository<Grade, Long> {
     @Query("SELECT g FROM Grade g WHERE g.deletedAt IS NULL AND g.evaluationId = :evaluationId")
     Page<Grade> findByEvaluationId(@Param("evaluationId") Long evaluationId, Pageable pageable);
     
+    /**
+     * Notas ativas da avaliação, bloqueadas até o fim da transação (em ordem de ID, sem deadlock entre
+     * sincronizações). Os eventos de cada nota entram no outbox com o lock da linha, em ordem de commit.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT g FROM Grade g WHERE g.deletedAt IS NULL AND g.evaluationId = :evaluationId ORDER BY g.id")
+    List<Grade> lockEvaluationGrades(@Param("evaluationId") Long evaluationId);
+
+    /**
+     * Nota bloqueada até o fim da transação, para alterações que registram evento no outbox:
+     * uma alteração concorrente da mesma nota aguarda o commit e recebe um ID de outbox maior
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT g FROM Grade g WHERE g.id = :id")
+    Optional<Grade> lockById(@Param("id") Long id);
+    
     @Query("SELECT g FROM Grade g WHERE g.deletedAt IS NULL " +
            "AND g.studentId = :studentId " +
            "AND g.academicYear = :academicYear " +
@@ -46,6 +89,12 @@ Optional<Grade> findByStudentIdAndEvaluationId(
         @Param("studentId") Long studentId, 
         @Param("evaluationId") Long evaluationId);
     
+    @Query("SELECT g.studentId, g.evaluationId FROM Grade g WHERE g.deletedAt IS NULL " +
+           "AND g.evaluationId IN :evaluationIds AND g.studentId IN :studentIds")
+    List<Object[]> findExistingStudentEvaluationPairs(
+        @Param("studentIds") Collection<Long> studentIds,
+        @Param("evaluationIds") Collection<Long> evaluationIds);
+
     @Query("SELECT g FROM Grade g WHERE g.deletedAt IS NULL " +
            "AND g.studentId = :studentId " +
            "AND g.evaluationId IN " +
@@ -70,13 +119,6 @@ Page<Grade> findStudentGrades(@Param("studentId") Long studentId,
                                   @Param("subjectId") Long subjectId,
                                   Pageable pageable);
     
-    @Query("SELECT AVG(g.gradeValue) FROM Grade g WHERE g.studentId = :studentId " +
-           "AND g.academicYear = :academicYear AND g.academicSemester = :academicSemester " +
-           "AND g.deletedAt IS NULL AND g.status = 'CONFIRMED'")
-    BigDecimal calculateAverageGrade(@Param("studentId") Long studentId,
-                                     @Param("academicYear") Integer academicYear,
-                                     @Param("academicSemester") Integer academicSemester);
-    
     @Query("SELECT COUNT(g) FROM Grade g WHERE g.deletedAt IS NULL " +
            "AND g.studentId = :studentId " +
            "AND g.academicYear = :academicYear " +
@@ -89,17 +131,311 @@ long countByStudentIdAndAcademicYearAndAcademicSemester(
     @Query("SELECT g FROM Grade g WHERE g.deletedAt IS NULL")
     Page<Grade> findAllNotDeleted(Pageable pageable);
 
-    @Query("SELECT g FROM Grade g WHERE g.deletedAt IS NULL AND g.classId = :classId " +
-           "AND (:academicYear IS NULL OR g.academicYear = :academicYear) " +
-           "AND (:academicSemester IS NULL OR g.academicSemester = :academicSemester)")
-    List<Grade> findClassGrades(@Param("classId") Long classId,
-                                @Param("academicYear") Integer academicYear,
-                                @Param("academicSemester") Integer academicSemester);
+    /**
+     * Variantes em Slice das listagens paginadas: buscam uma nota a mais para saber se há
+     * próxima página, sem a consulta COUNT do Page. Os totais vêm dos count* abaixo (em cache).
+     */
+    @Query("SELECT " + RESPONSE_PROJECTION + " FROM Grade g WHERE g.deletedAt IS NULL")
+    Slice<GradeResponseDTO> sliceAllNotDeleted(Pageable pageable);
+
+    @Query("SELECT " + RESPONSE_PROJECTION + " FROM Grade g WHERE g.deletedAt IS NULL AND g.studentId = :studentId")
+    Slice<GradeResponseDTO> sliceByStudentId(@Param("studentId") Long studentId, Pageable pageable);
 
-    @Query("SELECT g FROM Grade g WHERE g.deletedAt IS NULL AND g.classId IS NOT NULL " +
+    @Query("SELECT " + RESPONSE_PROJECTION + " FROM Grade g WHERE g.deletedAt IS NULL AND g.evaluationId = :evaluationId")
+    Slice<GradeResponseDTO> sliceByEvaluationId(@Param("evaluationId") Long evaluationId, Pageable pageable);
+
+    @Query("SELECT COUNT(g) FROM Grade g WHERE g.deletedAt IS NULL")
+    long countNotDeleted();
+
+    @Query("SELECT COUNT(g) FROM Grade g WHERE g.deletedAt IS NULL AND g.studentId = :studentId")
+    long countNotDeletedByStudentId(@Param("studentId") Long studentId);
+
+    @Query("SELECT COUNT(g) FROM Grade g WHERE g.deletedAt IS NULL AND g.evaluationId = :evaluationId")
+    long countNotDeletedByEvaluationId(@Param("evaluationId") Long evaluationId);
+
+    /**
+     * Notas para exportação em ordem de ID, em cursor no servidor (fetch size) e sem entidades gerenciadas.
+     * Filtros nulos são ignorados. Deve ser consumido dentro de uma transação.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT " + RESPONSE_PROJECTION + " FROM Grade g WHERE g.deletedAt IS NULL " +
+           "AND (:classId IS NULL OR g.classId = :classId) " +
            "AND (:academicYear IS NULL OR g.academicYear = :academicYear) " +
-           "AND (:academicSemester IS NULL OR g.academicSemester = :academicSemester)")
-    List<Grade> findAllClassGrades(@Param("academicYear") Integer academicYear,
-                                   @Param("academicSemester") Integer academicSemester);
-}
+           "AND (:academicSemester IS NULL OR g.academicSemester = :academicSemester) " +
+           "AND (CAST(:updatedSince AS LocalDateTime) IS NULL OR g.updatedAt >= :updatedSince) " +
+           "ORDER BY g.id")
+    Stream<GradeResponseDTO> streamForExport(@Param("classId") Long classId,
+                                             @Param("academicYear") Integer academicYear,
+                                             @Param("academicSemester") Integer academicSemester,
+                                             @Param("updatedSince") LocalDateTime updatedSince);
+
+    /**
+     * Listagens por cursor (keyset): continuam após a posição (chave de ordenação, id) informada,
+     * sem OFFSET nem contagem. O tamanho da página vem do Pageable (sem ordenação).
+     */
+    @Query("SELECT " + RESPONSE_PROJECTION + " FROM Grade g WHERE g.deletedAt IS NULL AND g.id > :afterId ORDER BY g.id")
+    List<GradeResponseDTO> findAllNotDeletedAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT " + RESPONSE_PROJECTION + " FROM Grade g WHERE g.deletedAt IS NULL AND g.studentId = :studentId " +
+           "AND (g.gradeDate < :afterDate OR (g.gradeDate = :afterDate AND g.id < :afterId)) " +
+           "ORDER BY g.gradeDate DESC, g.id DESC")
+    List<GradeResponseDTO> findByStudentIdAfter(@Param("studentId") Long studentId,
+                                     @Param("afterDate") LocalDate afterDate,
+                                     @Param("afterId") Long afterId,
+                                     Pageable pageable);
+
+    @Query("SELECT " + RESPONSE_PROJECTION + " FROM Grade g WHERE g.deletedAt IS NULL AND g.evaluationId = :evaluationId " +
+           "AND (g.gradeValue > :afterValue OR (g.gradeValue = :afterValue AND g.id > :afterId)) " +
+           "ORDER BY g.gradeValue, g.id")
+    List<GradeResponseDTO> findByEvaluationIdAfter(@Param("evaluationId") Long evaluationId,
+                                        @Param("afterValue") BigDecimal afterValue,
+                                        @Param("afterId") Long afterId,
+                                        Pageable pageable);
 
+    /**
+     * Notas de uma turma limitadas às :maxGrades mais recentes de cada aluno (data desc, id desc),
+     * em cursor e ordenadas por aluno para agregação em streaming. Lê apenas as colunas do resumo.
+     * Deve ser consumido dentro de uma transação (o fetch size exige autocommit desligado).
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT " + SNAPSHOT_COLUMNS + " FROM grades g JOIN (" +
+           "SELECT c.id, ROW_NUMBER() OVER (PARTITION BY c.student_id " +
+           "ORDER BY c.grade_date DESC NULLS LAST, c.id DESC) AS rn " +
+           "FROM grades c WHERE c.deleted_at IS NULL AND c.class_id = :classId " +
+           "AND (CAST(:academicYear AS INTEGER) IS NULL OR c.academic_year = CAST(:academicYear AS INTEGER)) " +
+           "AND (CAST(:academicSemester AS INTEGER) IS NULL OR c.academic_semester = CAST(:academicSemester AS INTEGER))" +
+           ") r ON r.id = g.id WHERE r.rn <= :maxGrades " +
+           "ORDER BY g.student_id, g.grade_date DESC NULLS LAST, g.id DESC",
+           nativeQuery = true)
+    Stream<GradeSnapshot> streamLatestClassGrades(@Param("classId") Long classId,
+                                                  @Param("academicYear") Integer academicYear,
+                                                  @Param("academicSemester") Integer academicSemester,
+                                                  @Param("maxGrades") int maxGrades);
+
+    /**
+     * Mesma leitura de {@link #streamLatestClassGrades}, para várias turmas em uma única consulta.
+     * As notas chegam ordenadas por turma e aluno.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT " + SNAPSHOT_COLUMNS + " FROM grades g JOIN (" +
+           "SELECT c.id, ROW_NUMBER() OVER (PARTITION BY c.class_id, c.student_id " +
+           "ORDER BY c.grade_date DESC NULLS LAST, c.id DESC) AS rn " +
+           "FROM grades c WHERE c.deleted_at IS NULL AND c.class_id IN (:classIds) " +
+           "AND (CAST(:academicYear AS INTEGER) IS NULL OR c.academic_year = CAST(:academicYear AS INTEGER)) " +
+           "AND (CAST(:academicSemester AS INTEGER) IS NULL OR c.academic_semester = CAST(:academicSemester AS INTEGER))" +
+           ") r ON r.id = g.id WHERE r.rn <= :maxGrades " +
+           "ORDER BY g.class_id, g.student_id, g.grade_date DESC NULLS LAST, g.id DESC",
+           nativeQuery = true)
+    Stream<GradeSnapshot> streamLatestGradesForClasses(@Param("classIds") Collection<Long> classIds,
+                                                       @Param("academicYear") Integer academicYear,
+                                                       @Param("academicSemester") Integer academicSemester,
+                                                       @Param("maxGrades") int maxGrades);
+
+    /**
+     * Média da turma: média (2 casas, HALF_UP) das :maxGrades notas mais recentes de cada aluno
+     * e, em seguida, média (2 casas, HALF_UP) das médias dos alunos. Retorna 0 sem notas.
+     */
+    @Query(value = "SELECT COALESCE(ROUND(AVG(s.student_average), 2), 0) FROM (" +
+           "SELECT ROUND(AVG(r.grade_value), 2) AS student_average FROM (" +
+           "SELECT g.student_id, g.grade_value, ROW_NUMBER() OVER (PARTITION BY g.student_id " +
+           "ORDER BY g.grade_date DESC NULLS LAST, g.id DESC) AS rn " +
+           "FROM grades g WHERE g.deleted_at IS NULL AND g.class_id = :classId " +
+           "AND (CAST(:academicYear AS INTEGER) IS NULL OR g.academic_year = CAST(:academicYear AS INTEGER)) " +
+           "AND (CAST(:academicSemester AS INTEGER) IS NULL OR g.academic_semester = CAST(:academicSemester AS INTEGER))" +
+           ") r WHERE r.rn <= :maxGrades GROUP BY r.student_id" +
+           ") s",
+           nativeQuery = true)
+    BigDecimal calculateClassAverage(@Param("classId") Long classId,
+                                     @Param("academicYear") Integer academicYear,
+                                     @Param("academicSemester") Integer academicSemester,
+                                     @Param("maxGrades") int maxGrades);
+
+    /**
+     * Média global entre turmas, com a mesma regra da média da turma aplicada a todas as
+     * notas vinculadas a alguma turma (as :maxGrades mais recentes de cada aluno).
+     */
+    @Query(value = "SELECT COALESCE(ROUND(AVG(s.student_average), 2), 0) FROM (" +
+           "SELECT ROUND(AVG(r.grade_value), 2) AS student_average FROM (" +
+           "SELECT g.student_id, g.grade_value, ROW_NUMBER() OVER (PARTITION BY g.student_id " +
+           "ORDER BY g.grade_date DESC NULLS LAST, g.id DESC) AS rn " +
+           "FROM grades g WHERE g.deleted_at IS NULL AND g.class_id IS NOT NULL " +
+           "AND (CAST(:academicYear AS INTEGER) IS NULL OR g.academic_year = CAST(:academicYear AS INTEGER)) " +
+           "AND (CAST(:academicSemester AS INTEGER) IS NULL OR g.academic_semester = CAST(:academicSemester AS INTEGER))" +
+           ") r WHERE r.rn <= :maxGrades GROUP BY r.student_id" +
+           ") s",
+           nativeQuery = true)
+    BigDecimal calculateGlobalClassesAverage(@Param("academicYear") Integer academicYear,
+                                             @Param("academicSemester") Integer academicSemester,
+                                             @Param("maxGrades") int maxGrades);
+
+    /**
+     * K melhores alunos da turma pela média (2 casas, HALF_UP) das :maxGrades notas mais recentes,
+     * a mesma usada no detalhamento da turma. Empates são desfeitos pelo menor ID do aluno.
+     */
+    @Query(value = "SELECT r.student_id AS studentId, ROUND(AVG(r.grade_value), 2) AS average, " +
+           "COUNT(*) AS gradeCount FROM (" +
+           "SELECT g.student_id, g.grade_value, ROW_NUMBER() OVER (PARTITION BY g.student_id " +
+           "ORDER BY g.grade_date DESC NULLS LAST, g.id DESC) AS rn " +
+           "FROM grades g WHERE g.deleted_at IS NULL AND g.class_id = :classId " +
+           "AND (CAST(:academicYear AS INTEGER) IS NULL OR g.academic_year = CAST(:academicYear AS INTEGER)) " +
+           "AND (CAST(:academicSemester AS INTEGER) IS NULL OR g.academic_semester = CAST(:academicSemester AS INTEGER))" +
+           ") r WHERE r.rn <= :maxGrades GROUP BY r.student_id " +
+           "ORDER BY average DESC, r.student_id LIMIT :k",
+           nativeQuery = true)
+    List<StudentRanking> findClassRanking(@Param("classId") Long classId,
+                                          @Param("academicYear") Integer academicYear,
+                                          @Param("academicSemester") Integer academicSemester,
+                                          @Param("maxGrades") int maxGrades,
+                                          @Param("k") int k);
+
+    /**
+     * K melhores alunos entre todas as turmas, com a mesma regra da média global
+     */
+    @Query(value = "SELECT r.student_id AS studentId, ROUND(AVG(r.grade_value), 2) AS average, " +
+           "COUNT(*) AS gradeCount FROM (" +
+           "SELECT g.student_id, g.grade_value, ROW_NUMBER() OVER (PARTITION BY g.student_id " +
+           "ORDER BY g.grade_date DESC NULLS LAST, g.id DESC) AS rn " +
+           "FROM grades g WHERE g.deleted_at IS NULL AND g.class_id IS NOT NULL " +
+           "AND (CAST(:academicYear AS INTEGER) IS NULL OR g.academic_year = CAST(:academicYear AS INTEGER)) " +
+           "AND (CAST(:academicSemester AS INTEGER) IS NULL OR g.academic_semester = CAST(:academicSemester AS INTEGER))" +
+           ") r WHERE r.rn <= :maxGrades GROUP BY r.student_id " +
+           "ORDER BY average DESC, r.student_id LIMIT :k",
+           nativeQuery = true)
+    List<StudentRanking> findGlobalRanking(@Param("academicYear") Integer academicYear,
+                                           @Param("academicSemester") Integer academicSemester,
+                                           @Param("maxGrades") int maxGrades,
+                                           @Param("k") int k);
+
+    interface StudentRanking {
+        Long getStudentId();
+        BigDecimal getAverage();
+        Long getGradeCount();
+    }
+
+    /**
+     * Até :maxGrades notas mais recentes de cada par turma/aluno informado no período,
+     * usadas para atualizar as médias mantidas no Redis. Ordenadas por turma, aluno e recência.
+     */
+    @Query(value = "SELECT r.class_id AS classId, r.student_id AS studentId, r.academic_year AS academicYear, " +
+           "r.academic_semester AS academicSemester, r.grade_value AS gradeValue FROM (" +
+           "SELECT g.class_id, g.student_id, g.academic_year, g.academic_semester, g.grade_value, " +
+           "ROW_NUMBER() OVER (PARTITION BY g.class_id, g.student_id " +
+           "ORDER BY g.grade_date DESC NULLS LAST, g.id DESC) AS rn " +
+           "FROM grades g WHERE g.deleted_at IS NULL AND g.academic_year = :academicYear " +
+           "AND g.academic_semester = :academicSemester AND g.class_id IN (:classIds) " +
+           "AND g.student_id IN (:studentIds)" +
+           ") r WHERE r.rn <= :maxGrades ORDER BY r.class_id, r.student_id, r.rn",
+           nativeQuery = true)
+    List<WindowGrade> findClassWindows(@Param("academicYear") Integer academicYear,
+                                       @Param("academicSemester") Integer academicSemester,
+                                       @Param("classIds") Collection<Long> classIds,
+                                       @Param("studentIds") Collection<Long> studentIds,
+                                       @Param("maxGrades") int maxGrades);
+
+    /**
+     * Mesma leitura de {@link #findClassWindows} com a regra da média global (aluno em todas as turmas)
+     */
+    @Query(value = "SELECT CAST(NULL AS BIGINT) AS classId, r.student_id AS studentId, r.academic_year AS academicYear, " +
+           "r.academic_semester AS academicSemester, r.grade_value AS gradeValue FROM (" +
+           "SELECT g.student_id, g.academic_year, g.academic_semester, g.grade_value, " +
+           "ROW_NUMBER() OVER (PARTITION BY g.student_id " +
+           "ORDER BY g.grade_date DESC NULLS LAST, g.id DESC) AS rn " +
+           "FROM grades g WHERE g.deleted_at IS NULL AND g.class_id IS NOT NULL " +
+           "AND g.academic_year = :academicYear AND g.academic_semester = :academicSemester " +
+           "AND g.student_id IN (:studentIds)" +
+           ") r WHERE r.rn <= :maxGrades ORDER BY r.student_id, r.rn",
+           nativeQuery = true)
+    List<WindowGrade> findGlobalWindows(@Param("academicYear") Integer academicYear,
+                                        @Param("academicSemester") Integer academicSemester,
+                                        @Param("studentIds") Collection<Long> studentIds,
+                                        @Param("maxGrades") int maxGrades);
+
+    /**
+     * Janelas de todos os alunos de uma turma no período, ordenadas por aluno e recência
+     * (recálculo de uma chave divergente na reconciliação das médias no Redis)
+     */
+    @Query(value = "SELECT r.class_id AS classId, r.student_id AS studentId, r.academic_year AS academicYear, " +
+           "r.academic_semester AS academicSemester, r.grade_value AS gradeValue FROM (" +
+           "SELECT g.class_id, g.student_id, g.academic_year, g.academic_semester, g.grade_value, " +
+           "ROW_NUMBER() OVER (PARTITION BY g.student_id " +
+           "ORDER BY g.grade_date DESC NULLS LAST, g.id DESC) AS rn " +
+           "FROM grades g WHERE g.deleted_at IS NULL AND g.class_id = :classId " +
+           "AND g.academic_year = :academicYear AND g.academic_semester = :academicSemester" +
+           ") r WHERE r.rn <= :maxGrades ORDER BY r.student_id, r.rn",
+           nativeQuery = true)
+    List<WindowGrade> findClassTermWindows(@Param("classId") Long classId,
+                                           @Param("academicYear") Integer academicYear,
+                                           @Param("academicSemester") Integer academicSemester,
+                                           @Param("maxGrades") int maxGrades);
+
+    /**
+     * Janelas de todos os alunos do período entre turmas, com a regra da média global
+     */
+    @Query(value = "SELECT CAST(NULL AS BIGINT) AS classId, r.student_id AS studentId, r.academic_year AS academicYear, " +
+           "r.academic_semester AS academicSemester, r.grade_value AS gradeValue FROM (" +
+           "SELECT g.student_id, g.academic_year, g.academic_semester, g.grade_value, " +
+           "ROW_NUMBER() OVER (PARTITION BY g.student_id " +
+           "ORDER BY g.grade_date DESC NULLS LAST, g.id DESC) AS rn " +
+           "FROM grades g WHERE g.deleted_at IS NULL AND g.class_id IS NOT NULL " +
+           "AND g.academic_year = :academicYear AND g.academic_semester = :academicSemester" +
+           ") r WHERE r.rn <= :maxGrades ORDER BY r.student_id, r.rn",
+           nativeQuery = true)
+    List<WindowGrade> findGlobalTermWindows(@Param("academicYear") Integer academicYear,
+                                            @Param("academicSemester") Integer academicSemester,
+                                            @Param("maxGrades") int maxGrades);
+
+    /**
+     * Todas as janelas por turma, período e aluno, em cursor (reconciliação das médias no Redis)
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "SELECT r.class_id AS classId, r.student_id AS studentId, r.academic_year AS academicYear, " +
+           "r.academic_semester AS academicSemester, r.grade_value AS gradeValue FROM (" +
+           "SELECT g.class_id, g.student_id, g.academic_year, g.academic_semester, g.grade_value, " +
+           "ROW_NUMBER() OVER (PARTITION BY g.class_id, g.academic_year, g.academic_semester, g.student_id " +
+           "ORDER BY g.grade_date DESC NULLS LAST, g.id DESC) AS rn " +
+           "FROM grades g WHERE g.deleted_at IS NULL AND g.class_id IS NOT NULL" +
+           ") r WHERE r.rn <= :maxGrades " +
+           "ORDER BY r.class_id, r.academic_year, r.academic_semester, r.student_id, r.rn",
+           nativeQuery = true)
+    Stream<WindowGrade> streamClassWindows(@Param("maxGrades") int maxGrades);
+
+    /**
+     * Todas as janelas por período e aluno entre turmas, em cursor (reconciliação das médias no Redis)
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "SELECT CAST(NULL AS BIGINT) AS classId, r.student_id AS studentId, r.academic_year AS academicYear, " +
+           "r.academic_semester AS academicSemester, r.grade_value AS gradeValue FROM (" +
+           "SELECT g.student_id, g.academic_year, g.academic_semester, g.grade_value, " +
+           "ROW_NUMBER() OVER (PARTITION BY g.academic_year, g.academic_semester, g.student_id " +
+           "ORDER BY g.grade_date DESC NULLS LAST, g.id DESC) AS rn " +
+           "FROM grades g WHERE g.deleted_at IS NULL AND g.class_id IS NOT NULL" +
+           ") r WHERE r.rn <= :maxGrades " +
+           "ORDER BY r.academic_year, r.academic_semester, r.student_id, r.rn",
+           nativeQuery = true)
+    Stream<WindowGrade> streamGlobalWindows(@Param("maxGrades") int maxGrades);
+
+    interface WindowGrade {
+        Long getClassId();
+        Long getStudentId();
+        Integer getAcademicYear();
+        Integer getAcademicSemester();
+        BigDecimal getGradeValue();
+    }
+
+    interface GradeSnapshot {
+        Long getId();
+        Long getStudentId();
+        Long getClassId();
+        Long getEvaluationId();
+        BigDecimal getGradeValue();
+        LocalDate getGradeDate();
+        Integer getAcademicYear();
+        Integer getAcademicSemester();
+    }
+}
@@ -0,0 +1,23 @@
+package com.distrischool.grade.repository;
+
+import com.distrischool.grade.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Tenta obter o advisory lock da transação corrente (liberado no commit/rollback).
+     * Garante um único relay ativo entre as instâncias do serviço.
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:lockId)", nativeQuery = true)
+    boolean tryAdvisoryXactLock(@Param("lockId") long lockId);
+
+    @Query(value = "SELECT * FROM outbox ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<OutboxEvent> findNextBatch(@Param("limit") int limit);
+}
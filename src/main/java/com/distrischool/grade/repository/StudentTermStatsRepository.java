@@ -0,0 +1,87 @@
+package com.distrischool.grade.repository;
+
+import com.distrischool.grade.entity.StudentTermStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+
+@Repository
+public interface StudentTermStatsRepository extends JpaRepository<StudentTermStats, StudentTermStats.Key> {
+
+    /**
+     * Soma notas confirmadas aos agregados do período (cria a linha se necessário)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO student_term_stats AS s (student_id, academic_year, academic_semester, " +
+           "grade_sum, grade_count, min_grade, max_grade, updated_at) " +
+           "VALUES (:studentId, :academicYear, :academicSemester, :gradeSum, :gradeCount, " +
+           ":minGrade, :maxGrade, CURRENT_TIMESTAMP) " +
+           "ON CONFLICT (student_id, academic_year, academic_semester) DO UPDATE SET " +
+           "grade_sum = s.grade_sum + EXCLUDED.grade_sum, " +
+           "grade_count = s.grade_count + EXCLUDED.grade_count, " +
+           "min_grade = LEAST(s.min_grade, EXCLUDED.min_grade), " +
+           "max_grade = GREATEST(s.max_grade, EXCLUDED.max_grade), " +
+           "updated_at = CURRENT_TIMESTAMP",
+           nativeQuery = true)
+    void addGrades(@Param("studentId") Long studentId,
+                   @Param("academicYear") Integer academicYear,
+                   @Param("academicSemester") Integer academicSemester,
+                   @Param("gradeSum") BigDecimal gradeSum,
+                   @Param("gradeCount") int gradeCount,
+                   @Param("minGrade") BigDecimal minGrade,
+                   @Param("maxGrade") BigDecimal maxGrade);
+
+    /**
+     * Subtrai notas que deixaram de contar. Mínima e máxima só são recalculadas a partir
+     * da tabela de notas quando um dos valores removidos era o extremo atual.
+     * Deve ser executado depois do flush das notas alteradas.
+     */
+    @Modifying
+    @Query(value = "UPDATE student_term_stats s SET " +
+           "grade_sum = s.grade_sum - :gradeSum, " +
+           "grade_count = s.grade_count - :gradeCount, " +
+           "min_grade = CASE WHEN :minGrade > s.min_grade THEN s.min_grade ELSE " +
+           "(SELECT MIN(g.grade_value) FROM grades g WHERE g.student_id = s.student_id " +
+           "AND g.academic_year = s.academic_year AND g.academic_semester = s.academic_semester " +
+           "AND g.deleted_at IS NULL AND g.status = 'CONFIRMED') END, " +
+           "max_grade = CASE WHEN :maxGrade < s.max_grade THEN s.max_grade ELSE " +
+           "(SELECT MAX(g.grade_value) FROM grades g WHERE g.student_id = s.student_id " +
+           "AND g.academic_year = s.academic_year AND g.academic_semester = s.academic_semester " +
+           "AND g.deleted_at IS NULL AND g.status = 'CONFIRMED') END, " +
+           "updated_at = CURRENT_TIMESTAMP " +
+           "WHERE s.student_id = :studentId AND s.academic_year = :academicYear " +
+           "AND s.academic_semester = :academicSemester",
+           nativeQuery = true)
+    void removeGrades(@Param("studentId") Long studentId,
+                      @Param("academicYear") Integer academicYear,
+                      @Param("academicSemester") Integer academicSemester,
+                      @Param("gradeSum") BigDecimal gradeSum,
+                      @Param("gradeCount") int gradeCount,
+                      @Param("minGrade") BigDecimal minGrade,
+                      @Param("maxGrade") BigDecimal maxGrade);
+
+    /**
+     * Bloqueia escritas concorrentes na tabela até o fim da transação (leituras continuam liberadas)
+     */
+    @Modifying
+    @Query(value = "LOCK TABLE student_term_stats IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "DELETE FROM student_term_stats", nativeQuery = true)
+    int deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO student_term_stats (student_id, academic_year, academic_semester, " +
+           "grade_sum, grade_count, min_grade, max_grade, updated_at) " +
+           "SELECT student_id, academic_year, academic_semester, " +
+           "SUM(grade_value), COUNT(*), MIN(grade_value), MAX(grade_value), CURRENT_TIMESTAMP " +
+           "FROM grades WHERE deleted_at IS NULL AND status = 'CONFIRMED' " +
+           "GROUP BY student_id, academic_year, academic_semester",
+           nativeQuery = true)
+    int insertFromGrades();
+}
@@ -0,0 +1,234 @@
+package com.distrischool.grade.service;
+
+import com.distrischool.grade.dto.AssessmentFinalizationStatusDTO;
+import com.distrischool.grade.entity.Assessment;
+import com.distrischool.grade.entity.AssessmentFinalizationCheckpoint;
+import com.distrischool.grade.kafka.DistriSchoolEvent;
+import com.distrischool.grade.kafka.EventOutbox;
+import com.distrischool.grade.repository.AssessmentFinalizationCheckpointRepository;
+import com.distrischool.grade.repository.AssessmentRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finalização das avaliações consolidadas no encerramento do período.
+ * As disciplinas do período são distribuídas em um pool limitado; cada worker finaliza
+ * sua disciplina em blocos, cada bloco em uma transação própria que também grava os
+ * eventos assessment.finalized no outbox e avança o checkpoint. Após uma falha o job
+ * é retomado do último bloco confirmado (automaticamente na inicialização).
+ */
+@Service
+@Slf4j
+public class AssessmentFinalizationService {
+
+    private static final String ASSESSMENT_AGGREGATE = "assessment";
+    private static final String SYSTEM_USER = "system";
+
+    private final AssessmentRepository assessmentRepository;
+    private final AssessmentFinalizationCheckpointRepository checkpointRepository;
+    private final AssessmentService assessmentService;
+    private final EventOutbox eventOutbox;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor coordinator;
+    private final ThreadPoolTaskExecutor workers;
+    private final int chunkSize;
+    private final String assessmentFinalizedTopic;
+    private final Set<String> runningTerms = ConcurrentHashMap.newKeySet();
+
+    public AssessmentFinalizationService(AssessmentRepository assessmentRepository,
+                                         AssessmentFinalizationCheckpointRepository checkpointRepository,
+                                         AssessmentService assessmentService,
+                                         EventOutbox eventOutbox,
+                                         EntityManager entityManager,
+                                         PlatformTransactionManager transactionManager,
+                                         @Value("${microservice.assessment.finalization.parallelism:4}") int parallelism,
+                                         @Value("${microservice.assessment.finalization.chunk-size:500}") int chunkSize,
+                                         @Value("${microservice.kafka.topics.assessment-finalized}") String assessmentFinalizedTopic) {
+        this.assessmentRepository = assessmentRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.assessmentService = assessmentService;
+        this.eventOutbox = eventOutbox;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.assessmentFinalizedTopic = assessmentFinalizedTopic;
+
+        this.coordinator = new ThreadPoolTaskExecutor();
+        coordinator.setCorePoolSize(1);
+        coordinator.setMaxPoolSize(1);
+        coordinator.setThreadNamePrefix("assessment-finalization-");
+        coordinator.initialize();
+
+        // Fila ilimitada: uma tarefa por disciplina, no máximo "parallelism" conexões em uso
+        this.workers = new ThreadPoolTaskExecutor();
+        workers.setCorePoolSize(parallelism);
+        workers.setMaxPoolSize(parallelism);
+        workers.setThreadNamePrefix("assessment-finalization-worker-");
+        workers.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdown();
+        workers.shutdown();
+    }
+
+    /**
+     * Retoma os jobs interrompidos (checkpoints não concluídos)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        checkpointRepository.findByCompletedAtIsNull().stream()
+                .map(checkpoint -> Map.entry(checkpoint.getAcademicYear(), checkpoint.getAcademicSemester()))
+                .distinct()
+                .forEach(term -> {
+                    log.info("Retomando finalização de avaliações - Ano: {}, Semestre: {}", term.getKey(), term.getValue());
+                    startFinalization(term.getKey(), term.getValue(), SYSTEM_USER);
+                });
+    }
+
+    /**
+     * Inicia a finalização do período em segundo plano.
+     * Retorna false se ela já estiver em execução nesta instância.
+     */
+    public boolean startFinalization(Integer academicYear, Integer academicSemester, String requestedBy) {
+        String term = academicYear + "/" + academicSemester;
+        if (!runningTerms.add(term)) {
+            return false;
+        }
+        CompletableFuture.runAsync(() -> runFinalization(academicYear, academicSemester, requestedBy), coordinator)
+                .whenComplete((result, error) -> {
+                    runningTerms.remove(term);
+                    if (error != null) {
+                        log.error("Erro na finalização de avaliações - Período: {}, Erro: {}", term, error.getMessage(), error);
+                    }
+                });
+        return true;
+    }
+
+    public AssessmentFinalizationStatusDTO getStatus(Integer academicYear, Integer academicSemester) {
+        List<AssessmentFinalizationCheckpoint> checkpoints =
+                checkpointRepository.findByAcademicYearAndAcademicSemester(academicYear, academicSemester);
+        return AssessmentFinalizationStatusDTO.builder()
+                .academicYear(academicYear)
+                .academicSemester(academicSemester)
+                .running(runningTerms.contains(academicYear + "/" + academicSemester))
+                .totalSubjects(checkpoints.size())
+                .completedSubjects((int) checkpoints.stream().filter(AssessmentFinalizationCheckpoint::isCompleted).count())
+                .finalizedAssessments(checkpoints.stream().mapToLong(AssessmentFinalizationCheckpoint::getFinalizedCount).sum())
+                .build();
+    }
+
+    private void runFinalization(Integer academicYear, Integer academicSemester, String requestedBy) {
+        long start = System.nanoTime();
+        // Notas finais atualizadas antes de congelar (avaliações já finalizadas não são alteradas)
+        assessmentService.recomputeFinalGrades(academicYear, academicSemester, null, requestedBy);
+
+        transactionTemplate.executeWithoutResult(status ->
+                checkpointRepository.openCheckpoints(academicYear, academicSemester));
+        List<AssessmentFinalizationCheckpoint> pending = checkpointRepository
+                .findByAcademicYearAndAcademicSemesterAndCompletedAtIsNull(academicYear, academicSemester);
+        log.info("Finalizando avaliações - Ano: {}, Semestre: {}, Disciplinas pendentes: {}",
+                 academicYear, academicSemester, pending.size());
+
+        CompletableFuture<?>[] subjects = pending.stream()
+                .map(checkpoint -> CompletableFuture.runAsync(
+                        () -> finalizeSubject(academicYear, academicSemester, checkpoint.getSubjectId(), requestedBy),
+                        workers))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(subjects).join();
+
+        log.info("Finalização de avaliações concluída - Ano: {}, Semestre: {}, Disciplinas: {}, Duração: {}ms",
+                 academicYear, academicSemester, pending.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void finalizeSubject(Integer academicYear, Integer academicSemester, Long subjectId, String requestedBy) {
+        Boolean completed;
+        do {
+            completed = transactionTemplate.execute(status ->
+                    finalizeChunk(academicYear, academicSemester, subjectId, requestedBy));
+        } while (!Boolean.TRUE.equals(completed));
+    }
+
+    /**
+     * Finaliza o próximo bloco da disciplina e avança o checkpoint na mesma transação.
+     * Retorna true quando a disciplina foi concluída.
+     */
+    private boolean finalizeChunk(Integer academicYear, Integer academicSemester, Long subjectId, String requestedBy) {
+        AssessmentFinalizationCheckpoint checkpoint = checkpointRepository
+                .lockCheckpoint(academicYear, academicSemester, subjectId)
+                .orElse(null);
+        if (checkpoint == null || checkpoint.isCompleted()) {
+            return true;
+        }
+
+        List<Assessment> chunk = assessmentRepository.findFinalizationChunk(subjectId, academicYear, academicSemester,
+                checkpoint.getLastAssessmentId(), PageRequest.of(0, chunkSize));
+        int finalized = 0;
+        for (Assessment assessment : chunk) {
+            if (assessment.getStatus() == Assessment.AssessmentStatus.FINALIZED) {
+                continue;
+            }
+            // O resultado é capturado antes de o status virar FINALIZED
+            Map<String, Object> data = finalizedEventData(assessment);
+            assessment.finalize();
+            assessment.setUpdatedBy(requestedBy);
+            data.put("completionDate", assessment.getCompletionDate());
+            eventOutbox.append(assessmentFinalizedTopic, ASSESSMENT_AGGREGATE, assessment.getId(),
+                    DistriSchoolEvent.of("assessment.finalized", "grade-management-service", data));
+            finalized++;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!chunk.isEmpty()) {
+            checkpoint.setLastAssessmentId(chunk.get(chunk.size() - 1).getId());
+        }
+        checkpoint.setFinalizedCount(checkpoint.getFinalizedCount() + finalized);
+        checkpoint.setUpdatedAt(now);
+        boolean completed = chunk.size() < chunkSize;
+        if (completed) {
+            checkpoint.setCompletedAt(now);
+        }
+
+        // Grava o bloco (updates e outbox em lote) e libera o contexto de persistência
+        entityManager.flush();
+        entityManager.clear();
+        log.debug("Bloco finalizado - Disciplina: {}, Avaliações: {}, Último ID: {}",
+                  subjectId, finalized, checkpoint.getLastAssessmentId());
+        return completed;
+    }
+
+    private Map<String, Object> finalizedEventData(Assessment assessment) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("assessmentId", assessment.getId());
+        data.put("studentId", assessment.getStudentId());
+        data.put("subjectId", assessment.getSubjectId());
+        data.put("teacherId", assessment.getTeacherId());
+        data.put("academicYear", assessment.getAcademicYear());
+        data.put("academicSemester", assessment.getAcademicSemester());
+        data.put("finalGrade", assessment.getFinalGrade());
+        data.put("recoveryGrade", assessment.getRecoveryGrade());
+        data.put("finalGradeAfterRecovery", assessment.getFinalGradeAfterRecovery());
+        data.put("result", assessment.getStatus().name());
+        data.put("approved", assessment.isApproved());
+        return data;
+    }
+}
@@ -0,0 +1,46 @@
+package com.distrischool.grade.service;
+
+import com.distrischool.grade.entity.Assessment;
+import com.distrischool.grade.exception.BusinessException;
+import com.distrischool.grade.repository.AssessmentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Serviço de avaliações consolidadas (nota final por aluno, disciplina e período)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class AssessmentService {
+
+    private final AssessmentRepository assessmentRepository;
+
+    /**
+     * Recalcula as notas finais de um período inteiro ou de uma disciplina no período,
+     * em uma única instrução sobre todas as notas envolvidas.
+     * Retorna a quantidade de avaliações consolidadas criadas ou alteradas.
+     */
+    @Transactional
+    public int recomputeFinalGrades(Integer academicYear, Integer academicSemester, Long subjectId, String updatedBy) {
+        if (academicYear == null || academicSemester == null) {
+            throw new BusinessException("Ano e semestre letivos são obrigatórios");
+        }
+        if (academicSemester < 1 || academicSemester > 2) {
+            throw new BusinessException("Semestre deve ser 1 ou 2");
+        }
+        log.info("Recalculando notas finais - Ano: {}, Semestre: {}, Disciplina: {}",
+                 academicYear, academicSemester, subjectId != null ? subjectId : "todas");
+
+        long start = System.nanoTime();
+        int affected = assessmentRepository.upsertFinalGrades(academicYear, academicSemester, subjectId,
+                Assessment.APPROVAL_GRADE, Assessment.RECOVERY_GRADE, updatedBy);
+
+        log.info("Notas finais recalculadas - Avaliações alteradas: {}, Duração: {}ms",
+                 affected, (System.nanoTime() - start) / 1_000_000);
+        return affected;
+    }
+}
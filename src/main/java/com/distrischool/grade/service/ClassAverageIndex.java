@@ -0,0 +1,636 @@
+package com.distrischool.grade.service;
+
+import com.distrischool.grade.dto.ClassAverageReconciliationDTO;
+import com.distrischool.grade.exception.BusinessException;
+import com.distrischool.grade.metrics.GradeMetricsRecorder;
+import com.distrischool.grade.repository.GradeRepository;
+import com.distrischool.grade.repository.GradeRepository.WindowGrade;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Médias de turma mantidas incrementalmente no Redis, em um hash por turma e período
+ * e em um hash global por período (mesma regra de {@link GradeRepository#calculateClassAverage}
+ * e {@link GradeRepository#calculateGlobalClassesAverage}).
+ * Cada hash guarda, por aluno, a média das 1, 2 e 3 notas mais recentes em centésimos, além
+ * da soma dessas médias e da quantidade de alunos: a média da turma é lida com um único HMGET.
+ * As janelas dos alunos afetados por uma escrita são relidas do banco antes do commit e
+ * aplicadas por um script Lua depois dele. Escritas concorrentes no mesmo aluno ou falhas do
+ * Redis podem deixar uma janela desatualizada; a reconciliação periódica recalcula tudo a partir
+ * do Postgres, reporta a divergência e corrige as chaves. Sem reconciliação recente o índice
+ * é considerado frio e as médias voltam a ser calculadas no banco.
+ * Cada hash tem um campo de versão incrementado a cada atualização: a reconciliação relê a chave
+ * divergente do banco depois de ler a versão e só a reescreve se a versão não mudou, para não
+ * desfazer uma escrita aplicada enquanto o Postgres era lido.
+ */
+@Component
+@Slf4j
+public class ClassAverageIndex {
+
+    /**
+     * Maior quantidade de notas por aluno aceita pelos endpoints de média
+     */
+    public static final int MAX_WINDOW = 3;
+
+    private static final String KEY_PREFIX = "grades:class-avg:";
+    private static final String CLASS_KEY_PREFIX = KEY_PREFIX + "class:";
+    private static final String GLOBAL_KEY_PREFIX = KEY_PREFIX + "global:";
+    private static final String READY_KEY = KEY_PREFIX + "ready";
+    private static final String LOCK_KEY = KEY_PREFIX + "lock";
+    private static final String SYNC_SUFFIX = ":sync";
+    private static final String STUDENT_FIELD_PREFIX = "s:";
+    private static final String SUM_FIELD_PREFIX = "sum:";
+    private static final String COUNT_FIELD = "count";
+    private static final String VERSION_FIELD = "version";
+    private static final int REWRITE_CHUNK_SIZE = 1000;
+    private static final int REPAIR_ATTEMPTS = 3;
+
+    /**
+     * Substitui as janelas dos alunos (ARGV: campo, valor; valor vazio remove o aluno),
+     * ajustando somas e contagem e incrementando a versão na mesma operação.
+     * O hash sem alunos fica só com a versão.
+     */
+    private static final RedisScript<Long> UPDATE_SCRIPT = RedisScript.of("""
+            local key = KEYS[1]
+            local version = redis.call('HINCRBY', key, 'version', 1)
+            for i = 1, #ARGV, 2 do
+              local field, value = ARGV[i], ARGV[i + 1]
+              local old = redis.call('HGET', key, field)
+              if old then
+                local n = 1
+                for part in string.gmatch(old, '[^,]+') do
+                  redis.call('HINCRBY', key, 'sum:' .. n, -tonumber(part))
+                  n = n + 1
+                end
+                redis.call('HINCRBY', key, 'count', -1)
+              end
+              if value ~= '' then
+                local n = 1
+                for part in string.gmatch(value, '[^,]+') do
+                  redis.call('HINCRBY', key, 'sum:' .. n, tonumber(part))
+                  n = n + 1
+                end
+                redis.call('HINCRBY', key, 'count', 1)
+                redis.call('HSET', key, field, value)
+              elseif old then
+                redis.call('HDEL', key, field)
+              end
+            end
+            if tonumber(redis.call('HGET', key, 'count') or '0') <= 0 then
+              redis.call('DEL', key)
+              redis.call('HSET', key, 'version', version)
+            end
+            return 1
+            """, Long.class);
+
+    /**
+     * Troca o hash (KEYS[1]) pelo hash temporário (KEYS[2]), ou o remove se não houver temporário,
+     * somente se a versão ainda for a lida antes do recálculo (ARGV[1], vazio para sem versão)
+     */
+    private static final RedisScript<Long> REPLACE_SCRIPT = RedisScript.of("""
+            local current = redis.call('HGET', KEYS[1], 'version') or ''
+            if current ~= ARGV[1] then
+              redis.call('DEL', KEYS[2])
+              return 0
+            end
+            if redis.call('EXISTS', KEYS[2]) == 1 then
+              redis.call('RENAME', KEYS[2], KEYS[1])
+              if current ~= '' then
+                redis.call('HSET', KEYS[1], 'version', current)
+              end
+            else
+              redis.call('DEL', KEYS[1])
+            end
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+              return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final GradeRepository gradeRepository;
+    private final EntityManager entityManager;
+    private final GradeMetricsRecorder metricsRecorder;
+    private final GradeCacheGenerations cacheGenerations;
+    private final TransactionTemplate readOnlyTransaction;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Duration readyTtl;
+
+    public ClassAverageIndex(StringRedisTemplate redisTemplate,
+                             GradeRepository gradeRepository,
+                             EntityManager entityManager,
+                             GradeMetricsRecorder metricsRecorder,
+                             GradeCacheGenerations cacheGenerations,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${microservice.grades.class-average-index.ready-ttl:24h}") Duration readyTtl) {
+        this.redisTemplate = redisTemplate;
+        this.gradeRepository = gradeRepository;
+        this.entityManager = entityManager;
+        this.metricsRecorder = metricsRecorder;
+        this.cacheGenerations = cacheGenerations;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readyTtl = readyTtl;
+    }
+
+    /**
+     * Média da turma no período a partir do Redis, ou null se o índice não puder ser usado
+     */
+    public BigDecimal classAverage(Long classId, Integer academicYear, Integer academicSemester, int window) {
+        return read(classKey(classId, academicYear, academicSemester), window);
+    }
+
+    /**
+     * Média global entre turmas no período a partir do Redis, ou null se o índice não puder ser usado
+     */
+    public BigDecimal globalAverage(Integer academicYear, Integer academicSemester, int window) {
+        return read(globalKey(academicYear, academicSemester), window);
+    }
+
+    /**
+     * Registra os alunos afetados pela alteração das notas. As janelas são recalculadas
+     * antes do commit (na mesma conexão) e gravadas no Redis após o commit.
+     */
+    public void recordChanges(Collection<GradeAggregates.GradeState> before,
+                              Collection<GradeAggregates.GradeState> after) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            PendingChanges newPending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, newPending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    computeUpdates(newPending);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ClassAverageIndex.this);
+                    if (status == STATUS_COMMITTED) {
+                        apply(newPending);
+                    }
+                }
+            });
+            pending = newPending;
+        }
+        Stream.concat(before.stream(), after.stream()).forEach(pending::add);
+    }
+
+    @Scheduled(initialDelayString = "${microservice.grades.class-average-index.initial-delay-ms:15000}",
+               fixedDelayString = "${microservice.grades.class-average-index.reconcile-interval-ms:3600000}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (BusinessException e) {
+            log.debug("Reconciliação das médias de turma ignorada: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("Erro ao reconciliar médias de turma: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recalcula todas as janelas a partir do Postgres e compara com o Redis. As chaves divergentes
+     * ou sem notas são relidas do banco uma a uma e corrigidas somente se não mudaram nesse meio tempo.
+     * Apenas uma réplica reconcilia por vez.
+     */
+    public ClassAverageReconciliationDTO reconcile() {
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, instanceId, Duration.ofMinutes(30));
+        if (!Boolean.TRUE.equals(locked)) {
+            throw new BusinessException("Reconciliação das médias de turma já está em andamento");
+        }
+        long start = System.nanoTime();
+        try {
+            Reconciliation run = new Reconciliation();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<WindowGrade> rows = gradeRepository.streamClassWindows(MAX_WINDOW)) {
+                    reconcileKeys(rows.iterator(),
+                            row -> classKey(row.getClassId(), row.getAcademicYear(), row.getAcademicSemester()), run);
+                }
+                try (Stream<WindowGrade> rows = gradeRepository.streamGlobalWindows(MAX_WINDOW)) {
+                    reconcileKeys(rows.iterator(),
+                            row -> globalKey(row.getAcademicYear(), row.getAcademicSemester()), run);
+                }
+            });
+            for (String key : run.candidateKeys) {
+                repairKey(key, run);
+            }
+            removeUnexpectedKeys(run);
+            redisTemplate.opsForValue().set(READY_KEY, String.valueOf(System.currentTimeMillis()), readyTtl);
+            if (run.divergentKeys > 0) {
+                // Médias em cache calculadas a partir das chaves corrigidas deixam de valer
+                cacheGenerations.invalidateClasses(run.divergentClassIds);
+            }
+
+            long durationMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            metricsRecorder.recordClassAverageDivergence(run.divergentKeys);
+            if (run.divergentKeys > 0) {
+                log.warn("Médias de turma divergentes no Redis corrigidas - Chaves: {}/{}, Alunos: {}, Duração: {}ms",
+                         run.divergentKeys, run.checkedKeys, run.divergentStudents, durationMs);
+            } else {
+                log.info("Médias de turma no Redis conferidas sem divergência - Chaves: {}, Duração: {}ms",
+                         run.checkedKeys, durationMs);
+            }
+            return ClassAverageReconciliationDTO.builder()
+                    .keysChecked(run.checkedKeys)
+                    .keysDiverged(run.divergentKeys)
+                    .studentsDiverged(run.divergentStudents)
+                    .durationMs(durationMs)
+                    .build();
+        } finally {
+            redisTemplate.execute(UNLOCK_SCRIPT, List.of(LOCK_KEY), instanceId);
+        }
+    }
+
+    private BigDecimal read(String key, int window) {
+        try {
+            // Um único round trip: marcador de reconciliação + soma e contagem da janela
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.keyCommands().exists(bytes(READY_KEY));
+                connection.hashCommands().hMGet(bytes(key), bytes(SUM_FIELD_PREFIX + window), bytes(COUNT_FIELD));
+                return null;
+            });
+            if (!Boolean.TRUE.equals(results.get(0))) {
+                metricsRecorder.recordClassAverageIndexLookup("cold");
+                return null;
+            }
+            List<?> values = (List<?>) results.get(1);
+            metricsRecorder.recordClassAverageIndexLookup("hit");
+            long count = values.get(1) != null ? Long.parseLong(values.get(1).toString()) : 0;
+            if (count <= 0) {
+                return BigDecimal.ZERO;
+            }
+            long sum = Long.parseLong(values.get(0).toString());
+            return GradeAverages.fromHundredths(GradeAverages.divideHalfUp(sum, count));
+        } catch (Exception e) {
+            log.warn("Erro ao consultar médias de turma no Redis - Chave: {}, Erro: {}", key, e.getMessage());
+            metricsRecorder.recordClassAverageIndexLookup("error");
+            return null;
+        }
+    }
+
+    private void computeUpdates(PendingChanges pending) {
+        try {
+            entityManager.flush();
+            pending.classStudents.forEach((term, pairs) -> {
+                Set<Long> classIds = new HashSet<>();
+                Set<Long> studentIds = new HashSet<>();
+                pairs.forEach(pair -> {
+                    classIds.add(pair.classId());
+                    studentIds.add(pair.studentId());
+                });
+                Map<ClassStudent, String> windows = new HashMap<>();
+                foldWindows(gradeRepository.findClassWindows(term.academicYear(), term.academicSemester(),
+                                classIds, studentIds, MAX_WINDOW),
+                        row -> new ClassStudent(row.getClassId(), row.getStudentId()), windows);
+                pairs.forEach(pair -> pending.updates
+                        .computeIfAbsent(classKey(pair.classId(), term.academicYear(), term.academicSemester()),
+                                key -> new LinkedHashMap<>())
+                        .put(STUDENT_FIELD_PREFIX + pair.studentId(), windows.getOrDefault(pair, "")));
+            });
+            pending.globalStudents.forEach((term, studentIds) -> {
+                Map<Long, String> windows = new HashMap<>();
+                foldWindows(gradeRepository.findGlobalWindows(term.academicYear(), term.academicSemester(),
+                                studentIds, MAX_WINDOW),
+                        WindowGrade::getStudentId, windows);
+                Map<String, String> fields = pending.updates.computeIfAbsent(
+                        globalKey(term.academicYear(), term.academicSemester()), key -> new LinkedHashMap<>());
+                studentIds.forEach(studentId ->
+                        fields.put(STUDENT_FIELD_PREFIX + studentId, windows.getOrDefault(studentId, "")));
+            });
+        } catch (Exception e) {
+            // A escrita da nota não depende do índice: ele é marcado como frio até a reconciliação
+            log.error("Erro ao recalcular médias de turma - Erro: {}", e.getMessage());
+            pending.failed = true;
+        }
+    }
+
+    private void apply(PendingChanges pending) {
+        if (pending.failed) {
+            markCold();
+            return;
+        }
+        pending.updates.forEach((key, fields) -> {
+            try {
+                String[] args = new String[fields.size() * 2];
+                int i = 0;
+                for (Map.Entry<String, String> field : fields.entrySet()) {
+                    args[i++] = field.getKey();
+                    args[i++] = field.getValue();
+                }
+                redisTemplate.execute(UPDATE_SCRIPT, List.of(key), (Object[]) args);
+            } catch (Exception e) {
+                log.error("Erro ao atualizar médias de turma no Redis - Chave: {}, Erro: {}", key, e.getMessage());
+                markCold();
+            }
+        });
+    }
+
+    private void markCold() {
+        try {
+            redisTemplate.delete(READY_KEY);
+        } catch (Exception e) {
+            log.warn("Erro ao marcar médias de turma como desatualizadas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Agrupa as linhas (ordenadas por grupo e recência) e codifica a janela de cada grupo
+     */
+    private static <K> void foldWindows(List<WindowGrade> rows, Function<WindowGrade, K> groupOf, Map<K, String> windows) {
+        int[] buffer = new int[MAX_WINDOW];
+        int size = 0;
+        K current = null;
+        for (WindowGrade row : rows) {
+            K group = groupOf.apply(row);
+            if (!group.equals(current)) {
+                if (current != null) {
+                    windows.put(current, encode(buffer, size));
+                }
+                current = group;
+                size = 0;
+            }
+            if (size < MAX_WINDOW) {
+                buffer[size++] = GradeAverages.toHundredths(row.getGradeValue());
+            }
+        }
+        if (current != null) {
+            windows.put(current, encode(buffer, size));
+        }
+    }
+
+    /**
+     * Médias das 1..MAX_WINDOW notas mais recentes, em centésimos ("a1,a2,a3");
+     * com menos notas, as janelas maiores repetem a média de todas elas
+     */
+    private static String encode(int[] hundredths, int size) {
+        StringBuilder value = new StringBuilder();
+        for (int window = 1; window <= MAX_WINDOW; window++) {
+            if (window > 1) {
+                value.append(',');
+            }
+            value.append(GradeAverages.average(hundredths, Math.min(window, size)));
+        }
+        return value.toString();
+    }
+
+    private void reconcileKeys(Iterator<WindowGrade> rows, Function<WindowGrade, String> keyOf, Reconciliation run) {
+        int[] buffer = new int[MAX_WINDOW];
+        int size = 0;
+        String currentKey = null;
+        Long currentStudent = null;
+        Map<String, String> expected = new HashMap<>();
+        while (rows.hasNext()) {
+            WindowGrade row = rows.next();
+            String key = keyOf.apply(row);
+            if (!key.equals(currentKey) || !row.getStudentId().equals(currentStudent)) {
+                if (currentStudent != null) {
+                    expected.put(STUDENT_FIELD_PREFIX + currentStudent, encode(buffer, size));
+                }
+                if (!key.equals(currentKey)) {
+                    if (currentKey != null) {
+                        checkKey(currentKey, expected, run);
+                    }
+                    currentKey = key;
+                    expected = new HashMap<>();
+                }
+                currentStudent = row.getStudentId();
+                size = 0;
+            }
+            if (size < MAX_WINDOW) {
+                buffer[size++] = GradeAverages.toHundredths(row.getGradeValue());
+            }
+        }
+        if (currentKey != null) {
+            expected.put(STUDENT_FIELD_PREFIX + currentStudent, encode(buffer, size));
+            checkKey(currentKey, expected, run);
+        }
+    }
+
+    /**
+     * Compara a chave com a leitura completa do banco; a correção fica para depois da leitura,
+     * já que escritas aplicadas após o início dela também aparecem como divergência
+     */
+    private void checkKey(String key, Map<String, String> studentFields, Reconciliation run) {
+        run.checkedKeys++;
+        run.expectedKeys.add(key);
+        if (!expectedHash(studentFields).equals(withoutVersion(redisTemplate.opsForHash().entries(key)))) {
+            run.candidateKeys.add(key);
+        }
+    }
+
+    /**
+     * Relê a chave do banco depois de ler sua versão e a substitui somente se a versão não mudou.
+     * Se a chave continuar mudando, a correção fica para a próxima reconciliação.
+     */
+    private void repairKey(String key, Reconciliation run) {
+        for (int attempt = 1; attempt <= REPAIR_ATTEMPTS; attempt++) {
+            Map<Object, Object> actual = new HashMap<>(redisTemplate.opsForHash().entries(key));
+            Object version = actual.get(VERSION_FIELD);
+            Map<String, String> studentFields = loadStudentFields(key);
+            Map<String, String> expected = expectedHash(studentFields);
+            Map<Object, Object> actualFields = withoutVersion(actual);
+            if (expected.equals(actualFields)) {
+                if (expected.isEmpty() && !actual.isEmpty()) {
+                    // Hash sem alunos (só com a versão): removido sem contar como divergência
+                    replace(key, version, expected);
+                }
+                return;
+            }
+            if (replace(key, version, expected)) {
+                run.divergentKeys++;
+                if (key.startsWith(CLASS_KEY_PREFIX)) {
+                    run.divergentClassIds.add(Long.valueOf(key.substring(CLASS_KEY_PREFIX.length()).split(":")[0]));
+                }
+                Set<Object> students = new HashSet<>(studentFields.keySet());
+                actualFields.keySet().stream()
+                        .filter(field -> field.toString().startsWith(STUDENT_FIELD_PREFIX))
+                        .forEach(students::add);
+                run.divergentStudents += students.stream()
+                        .filter(field -> !Objects.equals(studentFields.get(field.toString()), actualFields.get(field)))
+                        .count();
+                return;
+            }
+        }
+        log.debug("Chave de médias alterada durante a reconciliação, correção adiada - Chave: {}", key);
+    }
+
+    /**
+     * Janelas atuais dos alunos da chave, lidas do banco em uma transação própria
+     */
+    private Map<String, String> loadStudentFields(String key) {
+        List<WindowGrade> rows = readOnlyTransaction.execute(status -> {
+            if (key.startsWith(CLASS_KEY_PREFIX)) {
+                String[] parts = key.substring(CLASS_KEY_PREFIX.length()).split(":");
+                return gradeRepository.findClassTermWindows(Long.valueOf(parts[0]), Integer.valueOf(parts[1]),
+                        Integer.valueOf(parts[2]), MAX_WINDOW);
+            }
+            String[] parts = key.substring(GLOBAL_KEY_PREFIX.length()).split(":");
+            return gradeRepository.findGlobalTermWindows(Integer.valueOf(parts[0]), Integer.valueOf(parts[1]), MAX_WINDOW);
+        });
+        Map<Long, String> windows = new HashMap<>();
+        foldWindows(rows != null ? rows : List.of(), WindowGrade::getStudentId, windows);
+        Map<String, String> studentFields = new HashMap<>();
+        windows.forEach((studentId, window) -> studentFields.put(STUDENT_FIELD_PREFIX + studentId, window));
+        return studentFields;
+    }
+
+    /**
+     * Hash esperado (janelas, somas e contagem) para as janelas dos alunos; vazio sem alunos
+     */
+    private static Map<String, String> expectedHash(Map<String, String> studentFields) {
+        if (studentFields.isEmpty()) {
+            return Map.of();
+        }
+        long[] sums = new long[MAX_WINDOW];
+        studentFields.values().forEach(value -> {
+            String[] parts = value.split(",");
+            for (int i = 0; i < MAX_WINDOW; i++) {
+                sums[i] += Long.parseLong(parts[i]);
+            }
+        });
+        Map<String, String> expected = new HashMap<>(studentFields);
+        for (int i = 0; i < MAX_WINDOW; i++) {
+            expected.put(SUM_FIELD_PREFIX + (i + 1), String.valueOf(sums[i]));
+        }
+        expected.put(COUNT_FIELD, String.valueOf(studentFields.size()));
+        return expected;
+    }
+
+    private static Map<Object, Object> withoutVersion(Map<Object, Object> fields) {
+        Map<Object, Object> copy = new HashMap<>(fields);
+        copy.remove(VERSION_FIELD);
+        return copy;
+    }
+
+    /**
+     * Grava o hash completo em uma chave temporária e a troca pela atual (ou remove a atual, sem campos)
+     * se a versão ainda for a lida antes do recálculo
+     */
+    private boolean replace(String key, Object version, Map<String, String> fields) {
+        String syncKey = key + SYNC_SUFFIX;
+        redisTemplate.delete(syncKey);
+        List<Map.Entry<String, String>> entries = new ArrayList<>(fields.entrySet());
+        for (int from = 0; from < entries.size(); from += REWRITE_CHUNK_SIZE) {
+            Map<String, String> chunk = new HashMap<>();
+            entries.subList(from, Math.min(from + REWRITE_CHUNK_SIZE, entries.size()))
+                    .forEach(entry -> chunk.put(entry.getKey(), entry.getValue()));
+            redisTemplate.opsForHash().putAll(syncKey, chunk);
+        }
+        Long replaced = redisTemplate.execute(REPLACE_SCRIPT, List.of(key, syncKey),
+                version != null ? version.toString() : "");
+        return Long.valueOf(1).equals(replaced);
+    }
+
+    /**
+     * Confere as chaves de turmas e períodos sem notas na leitura completa (podem ter recebido
+     * notas depois dela) e remove as temporárias que sobraram de reconciliações interrompidas
+     */
+    private void removeUnexpectedKeys(Reconciliation run) {
+        List<String> unexpected = redisTemplate.execute((RedisCallback<List<String>>) connection -> {
+            List<String> keys = new ArrayList<>();
+            ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+            try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                cursor.forEachRemaining(rawKey -> {
+                    String key = new String(rawKey, StandardCharsets.UTF_8);
+                    boolean aggregateKey = key.startsWith(CLASS_KEY_PREFIX) || key.startsWith(GLOBAL_KEY_PREFIX);
+                    if (aggregateKey && !run.expectedKeys.contains(key)) {
+                        keys.add(key);
+                    }
+                });
+            }
+            return keys;
+        });
+        if (unexpected == null) {
+            return;
+        }
+        for (String key : unexpected) {
+            if (key.endsWith(SYNC_SUFFIX)) {
+                redisTemplate.delete(key);
+            } else {
+                repairKey(key, run);
+            }
+        }
+    }
+
+    private static String classKey(Long classId, Integer academicYear, Integer academicSemester) {
+        return CLASS_KEY_PREFIX + classId + ":" + academicYear + ":" + academicSemester;
+    }
+
+    private static String globalKey(Integer academicYear, Integer academicSemester) {
+        return GLOBAL_KEY_PREFIX + academicYear + ":" + academicSemester;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record Term(Integer academicYear, Integer academicSemester) {
+    }
+
+    private record ClassStudent(Long classId, Long studentId) {
+    }
+
+    private static final class PendingChanges {
+        private final Map<Term, Set<ClassStudent>> classStudents = new LinkedHashMap<>();
+        private final Map<Term, Set<Long>> globalStudents = new LinkedHashMap<>();
+        private final Map<String, Map<String, String>> updates = new LinkedHashMap<>();
+        private boolean failed;
+
+        void add(GradeAggregates.GradeState state) {
+            if (state.classId() == null || state.studentId() == null
+                    || state.academicYear() == null || state.academicSemester() == null) {
+                return;
+            }
+            Term term = new Term(state.academicYear(), state.academicSemester());
+            classStudents.computeIfAbsent(term, t -> new LinkedHashSet<>())
+                    .add(new ClassStudent(state.classId(), state.studentId()));
+            globalStudents.computeIfAbsent(term, t -> new LinkedHashSet<>()).add(state.studentId());
+        }
+    }
+
+    private static final class Reconciliation {
+        private final Set<String> expectedKeys = new HashSet<>();
+        private final List<String> candidateKeys = new ArrayList<>();
+        private final Set<Long> divergentClassIds = new HashSet<>();
+        private long checkedKeys;
+        private long divergentKeys;
+        private long divergentStudents;
+    }
+}
@@ -0,0 +1,66 @@
+package com.distrischool.grade.service;
+
+import com.distrischool.grade.entity.Grade;
+import com.distrischool.grade.entity.Grade.GradeStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Agregados derivados das notas mantidos na mesma transação das escritas:
+ * estatísticas por aluno e período e distribuição por avaliação e turma.
+ * As médias de turma no Redis são atualizadas após o commit.
+ * As escritas capturam o estado da nota antes e depois da alteração e cada
+ * agregado aplica apenas a diferença.
+ */
+@Service
+@RequiredArgsConstructor
+public class GradeAggregates {
+
+    private final StudentTermStatsService termStats;
+    private final GradeDistributionService distribution;
+    private final ClassAverageIndex classAverages;
+
+    /**
+     * Cópia dos campos da nota que alimentam os agregados (a entidade pode ser alterada depois)
+     */
+    public GradeState capture(Grade grade) {
+        return new GradeState(grade.getStudentId(), grade.getEvaluationId(), grade.getClassId(),
+                              grade.getAcademicYear(), grade.getAcademicSemester(), grade.getGradeValue(),
+                              grade.getStatus(), grade.getDeletedAt() != null);
+    }
+
+    /**
+     * Aplica a alteração de uma nota (null antes = criada, null depois = removida)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordChange(GradeState before, GradeState after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        recordChanges(Stream.ofNullable(before).toList(), Stream.ofNullable(after).toList());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordChanges(Collection<GradeState> before, Collection<GradeState> after) {
+        termStats.recordChanges(map(before, termStats::contributionOf), map(after, termStats::contributionOf));
+        distribution.recordChanges(before, after);
+        classAverages.recordChanges(before, after);
+    }
+
+    private static <T> Collection<T> map(Collection<GradeState> states, Function<GradeState, T> mapper) {
+        return states.stream().map(mapper).filter(Objects::nonNull).toList();
+    }
+
+    public record GradeState(Long studentId, Long evaluationId, Long classId,
+                             Integer academicYear, Integer academicSemester,
+                             BigDecimal gradeValue, GradeStatus status, boolean deleted) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.distrischool.grade.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Médias de notas em ponto fixo: as notas (DECIMAL(4,2), de 0 a 10) são representadas
+ * em centésimos num int, somadas em long e arredondadas com HALF_UP na escala 2,
+ * o mesmo resultado de BigDecimal.divide(divisor, 2, RoundingMode.HALF_UP).
+ * A conversão para BigDecimal acontece uma única vez, no resultado.
+ */
+public final class GradeAverages {
+
+    private GradeAverages() {
+    }
+
+    /**
+     * Converte uma nota para centésimos (lança ArithmeticException se tiver mais de 2 casas)
+     */
+    public static int toHundredths(BigDecimal value) {
+        return value.movePointRight(2).intValueExact();
+    }
+
+    public static BigDecimal fromHundredths(long hundredths) {
+        return BigDecimal.valueOf(hundredths, 2);
+    }
+
+    /**
+     * Média dos primeiros count valores do array, em centésimos
+     */
+    public static long average(int[] hundredths, int count) {
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += hundredths[i];
+        }
+        return divideHalfUp(sum, count);
+    }
+
+    /**
+     * Divisão inteira com arredondamento HALF_UP (metade se afasta do zero)
+     */
+    public static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (2 * Math.abs(remainder) >= Math.abs(divisor)) {
+            quotient += Long.signum(dividend) * Long.signum(divisor);
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,195 @@
+package com.distrischool.grade.service;
+
+import com.distrischool.grade.cache.CacheInvalidationBus;
+import com.distrischool.grade.entity.Grade;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.cache.CacheKeyPrefix;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Contadores de geração usados nas chaves dos caches derivados de notas.
+ * Uma escrita incrementa a geração do aluno, da avaliação, da turma e a global,
+ * invalidando as entradas derivadas sem varrer o keyspace (as antigas expiram pelo TTL).
+ * A entrada da própria nota no cache "grades" é removida diretamente.
+ * As gerações lidas ficam em memória e são invalidadas nas réplicas via pub/sub.
+ */
+@Component("gradeCacheGenerations")
+@Slf4j
+public class GradeCacheGenerations {
+
+    public static final String GRADES_CACHE = "grades";
+    public static final String AGGREGATES_CACHE = "grade-aggregates";
+
+    private static final String KEY_PREFIX = "grades:gen:";
+    private static final String GLOBAL_KEY = KEY_PREFIX + "global";
+    private static final String GENERATIONS_BUS_NAME = "grade-cache-generations";
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheInvalidationBus invalidationBus;
+    private final Cache<String, Long> localGenerations;
+
+    public GradeCacheGenerations(StringRedisTemplate redisTemplate,
+                                 CacheInvalidationBus invalidationBus,
+                                 @Value("${microservice.cache.local.max-size:10000}") long localMaxSize,
+                                 @Value("${microservice.cache.local.ttl:60s}") Duration localTtl) {
+        this.redisTemplate = redisTemplate;
+        this.invalidationBus = invalidationBus;
+        this.localGenerations = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .build();
+        invalidationBus.register(GENERATIONS_BUS_NAME, keys -> {
+            if (keys.isEmpty()) {
+                localGenerations.invalidateAll();
+            } else {
+                localGenerations.invalidateAll(keys);
+            }
+        });
+    }
+
+    public long student(Long studentId) {
+        return current(KEY_PREFIX + "student:" + studentId);
+    }
+
+    public long evaluation(Long evaluationId) {
+        return current(KEY_PREFIX + "evaluation:" + evaluationId);
+    }
+
+    public long forClass(Long classId) {
+        return current(KEY_PREFIX + "class:" + classId);
+    }
+
+    public long global() {
+        return current(GLOBAL_KEY);
+    }
+
+    public void invalidate(Grade grade) {
+        invalidate(List.of(grade));
+    }
+
+    /**
+     * Registra a invalidação das notas informadas. Dentro de uma transação, os IDs são
+     * capturados no momento da chamada e aplicados de uma só vez após o commit.
+     */
+    public void invalidate(Collection<Grade> grades) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingInvalidation pending = new PendingInvalidation();
+            grades.forEach(pending::add);
+            apply(pending);
+            return;
+        }
+        PendingInvalidation pending = (PendingInvalidation) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            PendingInvalidation newPending = new PendingInvalidation();
+            TransactionSynchronizationManager.bindResource(this, newPending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(GradeCacheGenerations.this);
+                    if (status == STATUS_COMMITTED) {
+                        apply(newPending);
+                    }
+                }
+            });
+            pending = newPending;
+        }
+        grades.forEach(pending::add);
+    }
+
+    /**
+     * Invalida os agregados das turmas informadas (e os globais) sem uma nota associada,
+     * usado quando um agregado derivado é corrigido fora do fluxo de escrita
+     */
+    public void invalidateClasses(Collection<Long> classIds) {
+        PendingInvalidation pending = new PendingInvalidation();
+        pending.global = true;
+        classIds.forEach(classId -> PendingInvalidation.addIfPresent(pending.classIds, classId));
+        apply(pending);
+    }
+
+    private long current(String key) {
+        return localGenerations.get(key, k -> {
+            String value = redisTemplate.opsForValue().get(k);
+            return value != null ? Long.parseLong(value) : 0L;
+        });
+    }
+
+    private void apply(PendingInvalidation pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<String> generationKeys = new ArrayList<>();
+        generationKeys.add(GLOBAL_KEY);
+        pending.studentIds.forEach(id -> generationKeys.add(KEY_PREFIX + "student:" + id));
+        pending.evaluationIds.forEach(id -> generationKeys.add(KEY_PREFIX + "evaluation:" + id));
+        pending.classIds.forEach(id -> generationKeys.add(KEY_PREFIX + "class:" + id));
+        try {
+            // Um único round trip: incrementa as gerações e remove as notas do cache por ID
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                generationKeys.forEach(key -> incr(connection, key));
+                if (!pending.gradeIds.isEmpty()) {
+                    String prefix = CacheKeyPrefix.simple().compute(GRADES_CACHE);
+                    connection.keyCommands().del(pending.gradeIds.stream()
+                            .map(id -> bytes(prefix + id))
+                            .toArray(byte[][]::new));
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Erro ao invalidar cache de notas - Notas: {}, Erro: {}", pending.gradeIds, e.getMessage());
+        }
+        // Caches locais (L1) desta e das demais réplicas
+        invalidationBus.publish(GENERATIONS_BUS_NAME, generationKeys);
+        invalidationBus.publish(GRADES_CACHE, pending.gradeIds.stream().map(String::valueOf).toList());
+    }
+
+    private static void incr(RedisConnection connection, String key) {
+        connection.stringCommands().incr(bytes(key));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class PendingInvalidation {
+        private final Set<Long> gradeIds = new LinkedHashSet<>();
+        private final Set<Long> studentIds = new LinkedHashSet<>();
+        private final Set<Long> evaluationIds = new LinkedHashSet<>();
+        private final Set<Long> classIds = new LinkedHashSet<>();
+        private boolean global;
+
+        void add(Grade grade) {
+            addIfPresent(gradeIds, grade.getId());
+            addIfPresent(studentIds, grade.getStudentId());
+            addIfPresent(evaluationIds, grade.getEvaluationId());
+            addIfPresent(classIds, grade.getClassId());
+        }
+
+        boolean isEmpty() {
+            return !global && gradeIds.isEmpty() && studentIds.isEmpty() && evaluationIds.isEmpty() && classIds.isEmpty();
+        }
+
+        private static void addIfPresent(Set<Long> ids, Long id) {
+            if (Objects.nonNull(id)) {
+                ids.add(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.distrischool.grade.service;
+
+import com.distrischool.grade.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posição de uma listagem por cursor: a chave de ordenação e o ID da última nota retornada.
+ * É serializada como um token opaco (Base64 URL-safe) que identifica também a listagem,
+ * para que um cursor não seja reaproveitado em outra ordenação.
+ */
+record GradeCursor(String listing, String sortKey, long id) {
+
+    private static final String SEPARATOR = "|";
+
+    String encode() {
+        String raw = listing + SEPARATOR + sortKey + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Lê o token recebido do cliente (nulo ou vazio = primeira página)
+     */
+    static GradeCursor decode(String token, String expectedListing) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3 || !parts[0].equals(expectedListing)) {
+                throw new BusinessException("Cursor inválido para esta listagem");
+            }
+            return new GradeCursor(parts[0], parts[1], Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Cursor inválido");
+        }
+    }
+}
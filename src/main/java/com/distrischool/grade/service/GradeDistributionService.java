@@ -0,0 +1,130 @@
+package com.distrischool.grade.service;
+
+import com.distrischool.grade.dto.GradeDistributionDTO;
+import com.distrischool.grade.entity.GradeDistributionCount.Scope;
+import com.distrischool.grade.repository.GradeDistributionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Distribuição das notas por avaliação e por turma.
+ * Como as notas são centésimos entre 0 e 10, o "sketch" mantido é o histograma exato por valor
+ * (no máximo 1001 contadores por avaliação/turma e período): é combinável somando contadores
+ * e fornece percentis exatos sem ler a tabela de notas.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class GradeDistributionService {
+
+    private static final int BUCKET_WIDTH = 100;
+    private static final int BUCKET_COUNT = 10;
+
+    private final GradeDistributionRepository distributionRepository;
+
+    /**
+     * Aplica a alteração de notas aos contadores (-1 no valor anterior, +1 no novo)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordChanges(Collection<GradeAggregates.GradeState> before,
+                              Collection<GradeAggregates.GradeState> after) {
+        Map<CounterKey, Integer> deltas = new LinkedHashMap<>();
+        before.forEach(state -> accumulate(deltas, state, -1));
+        after.forEach(state -> accumulate(deltas, state, 1));
+        deltas.forEach((key, delta) -> {
+            if (delta != 0) {
+                distributionRepository.increment(key.scope().name(), key.scopeId(), key.academicYear(),
+                        key.academicSemester(), key.gradeHundredths(), delta);
+            }
+        });
+    }
+
+    /**
+     * Distribuição de uma avaliação/turma ou, sem scopeId, de todas do escopo.
+     * Sem ano/semestre, os períodos são somados.
+     */
+    public GradeDistributionDTO getDistribution(Scope scope, Long scopeId, Integer academicYear, Integer academicSemester) {
+        List<GradeDistributionRepository.GradeCount> counts =
+                distributionRepository.findMergedCounts(scope.name(), scopeId, academicYear, academicSemester);
+
+        long[] buckets = new long[BUCKET_COUNT];
+        long total = 0;
+        long weightedSum = 0;
+        for (GradeDistributionRepository.GradeCount count : counts) {
+            int hundredths = count.getGradeHundredths();
+            total += count.getGradeCount();
+            weightedSum += (long) hundredths * count.getGradeCount();
+            buckets[Math.min(hundredths / BUCKET_WIDTH, BUCKET_COUNT - 1)] += count.getGradeCount();
+        }
+
+        List<GradeDistributionDTO.BucketDTO> bucketDTOs = new ArrayList<>(BUCKET_COUNT);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketDTOs.add(GradeDistributionDTO.BucketDTO.builder()
+                    .from(GradeAverages.fromHundredths((long) i * BUCKET_WIDTH))
+                    .to(GradeAverages.fromHundredths((long) (i + 1) * BUCKET_WIDTH))
+                    .count(buckets[i])
+                    .build());
+        }
+
+        GradeDistributionDTO.GradeDistributionDTOBuilder builder = GradeDistributionDTO.builder()
+                .scope(scope.name())
+                .scopeId(scopeId)
+                .academicYear(academicYear)
+                .academicSemester(academicSemester)
+                .totalGrades(total)
+                .buckets(bucketDTOs);
+
+        if (total > 0) {
+            builder.average(GradeAverages.fromHundredths(GradeAverages.divideHalfUp(weightedSum, total)))
+                    .min(GradeAverages.fromHundredths(counts.get(0).getGradeHundredths()))
+                    .p10(percentile(counts, total, 10))
+                    .median(percentile(counts, total, 50))
+                    .p90(percentile(counts, total, 90))
+                    .max(GradeAverages.fromHundredths(counts.get(counts.size() - 1).getGradeHundredths()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Percentil pelo método nearest-rank: menor valor cuja frequência acumulada alcança ceil(p% * total)
+     */
+    private static BigDecimal percentile(List<GradeDistributionRepository.GradeCount> counts, long total, int percent) {
+        long rank = Math.max(1, (total * percent + 99) / 100);
+        long cumulative = 0;
+        for (GradeDistributionRepository.GradeCount count : counts) {
+            cumulative += count.getGradeCount();
+            if (cumulative >= rank) {
+                return GradeAverages.fromHundredths(count.getGradeHundredths());
+            }
+        }
+        return GradeAverages.fromHundredths(counts.get(counts.size() - 1).getGradeHundredths());
+    }
+
+    private static void accumulate(Map<CounterKey, Integer> deltas, GradeAggregates.GradeState state, int delta) {
+        if (state.deleted() || state.gradeValue() == null) {
+            return;
+        }
+        short hundredths = (short) GradeAverages.toHundredths(state.gradeValue());
+        deltas.merge(new CounterKey(Scope.EVALUATION, state.evaluationId(), state.academicYear(),
+                state.academicSemester(), hundredths), delta, Integer::sum);
+        if (state.classId() != null) {
+            deltas.merge(new CounterKey(Scope.CLASS, state.classId(), state.academicYear(),
+                    state.academicSemester(), hundredths), delta, Integer::sum);
+        }
+    }
+
+    private record CounterKey(Scope scope, Long scopeId, Integer academicYear, Integer academicSemester,
+                              short gradeHundredths) {
+    }
+}
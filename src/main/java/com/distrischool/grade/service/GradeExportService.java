@@ -0,0 +1,327 @@
+package com.distrischool.grade.service;
+
+import com.distrischool.grade.dto.GradeResponseDTO;
+import com.distrischool.grade.exception.BusinessException;
+import com.distrischool.grade.metrics.GradeMetricsRecorder;
+import com.distrischool.grade.repository.GradeRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Exportação de notas em NDJSON ou CSV, escrita linha a linha direto na resposta.
+ * A leitura usa cursor no servidor dentro de uma transação aberta só durante a escrita,
+ * então a memória não depende do volume e a conexão é liberada ao fim da transferência.
+ * A transferência roda em threads próprias (no máximo max-concurrent exportações com conexão aberta):
+ * quando o cliente desconecta o Spring interrompe a thread da requisição assíncrona, e uma interrupção
+ * no meio do rollback ou do carregamento de classes do jar deixaria a aplicação em estado inválido.
+ */
+@Slf4j
+@Service
+public class GradeExportService {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "id,studentId,teacherId,classId,evaluationId,gradeValue,gradeDate,"
+            + "status,isAutomatic,postedAt,academicYear,academicSemester,createdAt,updatedAt,createdBy,updatedBy,notes";
+
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getFileName() {
+            return "grades." + name().toLowerCase(Locale.ROOT);
+        }
+
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new BusinessException("Formato de exportação inválido: " + value + " (use ndjson ou csv)");
+        }
+    }
+
+    private final GradeRepository gradeRepository;
+    private final GradeMetricsRecorder metricsRecorder;
+    private final ObjectWriter jsonWriter;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolTaskExecutor transfers;
+
+    public GradeExportService(GradeRepository gradeRepository,
+                              GradeMetricsRecorder metricsRecorder,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${microservice.grades.export.max-concurrent:2}") int maxConcurrent) {
+        this.gradeRepository = gradeRepository;
+        this.metricsRecorder = metricsRecorder;
+        this.objectMapper = objectMapper;
+        // O flush fica com o buffer do gerador, não com cada linha
+        this.jsonWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        // Fila ilimitada: exportações além do limite aguardam uma thread (e uma conexão) livre
+        this.transfers = new ThreadPoolTaskExecutor();
+        transfers.setCorePoolSize(maxConcurrent);
+        transfers.setMaxPoolSize(maxConcurrent);
+        transfers.setThreadNamePrefix("grade-export-");
+        transfers.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        transfers.shutdown();
+    }
+
+    /**
+     * Escreve as notas filtradas no formato pedido. Filtros nulos são ignorados.
+     * Bloqueia até o fim da transferência, que roda em uma thread de exportação.
+     */
+    public void export(Format format,
+                       Long classId,
+                       Integer academicYear,
+                       Integer academicSemester,
+                       LocalDateTime updatedSince,
+                       OutputStream out) throws IOException {
+        Cancellation cancellation = new Cancellation();
+        Future<?> transfer = transfers.submit(() -> {
+            if (!cancellation.start()) {
+                return null;
+            }
+            try {
+                transfer(format, classId, academicYear, academicSemester, updatedSince, out, cancellation);
+            } finally {
+                cancellation.finished.countDown();
+            }
+            return null;
+        });
+        try {
+            transfer.get();
+        } catch (InterruptedException e) {
+            // Requisição cancelada (cliente desconectado ou timeout): a resposta não pode mais ser escrita
+            // depois deste retorno, então uma transferência em andamento é aguardada até parar na próxima linha
+            transfer.cancel(false);
+            cancellation.cancelAndAwait();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Exportação de notas cancelada");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Cancelamento de uma exportação: impede o início de uma transferência ainda na fila
+     * e faz uma transferência em andamento parar antes da próxima escrita
+     */
+    private static final class Cancellation {
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile boolean cancelled;
+
+        boolean start() {
+            return started.compareAndSet(false, true);
+        }
+
+        void cancelAndAwait() {
+            cancelled = true;
+            if (start()) {
+                return;
+            }
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    finished.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void check() throws InterruptedIOException {
+            if (cancelled) {
+                throw new InterruptedIOException("Exportação de notas cancelada");
+            }
+        }
+    }
+
+    private void transfer(Format format,
+                          Long classId,
+                          Integer academicYear,
+                          Integer academicSemester,
+                          LocalDateTime updatedSince,
+                          OutputStream out,
+                          Cancellation cancellation) throws IOException {
+        long start = System.nanoTime();
+        long[] rows = {0};
+        try {
+            cancellation.check();
+            RowWriter writer = format == Format.CSV ? csvWriter(out) : ndjsonWriter(out);
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<GradeResponseDTO> grades = gradeRepository.streamForExport(
+                        classId, academicYear, academicSemester, updatedSince)) {
+                    grades.forEach(grade -> {
+                        try {
+                            cancellation.check();
+                            writer.write(grade);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        rows[0]++;
+                    });
+                }
+            });
+            cancellation.check();
+            writer.finish();
+            metricsRecorder.recordOperation("export", "success");
+            log.info("Exportação de notas concluída - Formato: {}, Linhas: {}, Tempo: {} ms",
+                     format, rows[0], (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | UncheckedIOException e) {
+            IOException cause = e instanceof UncheckedIOException unchecked ? unchecked.getCause() : (IOException) e;
+            metricsRecorder.recordOperation("export", "failure");
+            log.warn("Exportação de notas interrompida após {} linhas: {}", rows[0], cause.getMessage());
+            throw cause;
+        } catch (RuntimeException e) {
+            metricsRecorder.recordOperation("export", "failure");
+            log.error("Erro na exportação de notas após {} linhas", rows[0], e);
+            throw e;
+        }
+    }
+
+    private interface RowWriter {
+        void write(GradeResponseDTO grade) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private RowWriter ndjsonWriter(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        return new RowWriter() {
+            @Override
+            public void write(GradeResponseDTO grade) throws IOException {
+                jsonWriter.writeValue(generator, grade);
+                generator.writeRaw('\n');
+            }
+
+            @Override
+            public void finish() throws IOException {
+                generator.flush();
+            }
+        };
+    }
+
+    private RowWriter csvWriter(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        return new RowWriter() {
+            @Override
+            public void write(GradeResponseDTO grade) throws IOException {
+                writer.write(csvValue(grade.getId()));
+                writer.write(',');
+                writer.write(csvValue(grade.getStudentId()));
+                writer.write(',');
+                writer.write(csvValue(grade.getTeacherId()));
+                writer.write(',');
+                writer.write(csvValue(grade.getClassId()));
+                writer.write(',');
+                writer.write(csvValue(grade.getEvaluationId()));
+                writer.write(',');
+                writer.write(grade.getGradeValue() != null ? grade.getGradeValue().toPlainString() : "");
+                writer.write(',');
+                writer.write(csvValue(grade.getGradeDate()));
+                writer.write(',');
+                writer.write(csvValue(grade.getStatus()));
+                writer.write(',');
+                writer.write(csvValue(grade.getIsAutomatic()));
+                writer.write(',');
+                writer.write(csvValue(grade.getPostedAt()));
+                writer.write(',');
+                writer.write(csvValue(grade.getAcademicYear()));
+                writer.write(',');
+                writer.write(csvValue(grade.getAcademicSemester()));
+                writer.write(',');
+                writer.write(csvValue(grade.getCreatedAt()));
+                writer.write(',');
+                writer.write(csvValue(grade.getUpdatedAt()));
+                writer.write(',');
+                writer.write(csvText(grade.getCreatedBy()));
+                writer.write(',');
+                writer.write(csvText(grade.getUpdatedBy()));
+                writer.write(',');
+                writer.write(csvText(grade.getNotes()));
+                writer.write('\n');
+            }
+
+            @Override
+            public void finish() throws IOException {
+                writer.flush();
+            }
+        };
+    }
+
+    private static String csvValue(Object value) {
+        return value != null ? value.toString() : "";
+    }
+
+    /**
+     * Texto livre entre aspas quando contém separador, aspas ou quebra de linha (RFC 4180)
+     */
+    private static String csvText(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,49 @@
+package com.distrischool.grade.service;
+
+import com.distrischool.grade.repository.GradeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Totais das listagens paginadas de notas, em cache e invalidados pelas gerações
+ * (global, do aluno ou da avaliação). Evitam um COUNT por página quando o total é pedido.
+ */
+@Component
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class GradeListingCounts {
+
+    private final GradeRepository gradeRepository;
+    private final GradeCacheGenerations cacheGenerations;
+    private final CacheManager cacheManager;
+
+    public long countAll() {
+        return cached("count:all:g" + cacheGenerations.global(), gradeRepository::countNotDeleted);
+    }
+
+    public long countByStudent(Long studentId) {
+        return cached("count:student:" + studentId + ":g" + cacheGenerations.student(studentId),
+                () -> gradeRepository.countNotDeletedByStudentId(studentId));
+    }
+
+    public long countByEvaluation(Long evaluationId) {
+        return cached("count:evaluation:" + evaluationId + ":g" + cacheGenerations.evaluation(evaluationId),
+                () -> gradeRepository.countNotDeletedByEvaluationId(evaluationId));
+    }
+
+    /**
+     * O total é gravado como número JSON e pode voltar do Redis como Integer ou Long,
+     * por isso é lido como Number (o @Cacheable faria o cast direto para Long)
+     */
+    private long cached(String key, LongSupplier count) {
+        Cache cache = Objects.requireNonNull(cacheManager.getCache(GradeCacheGenerations.AGGREGATES_CACHE));
+        Number total = cache.get(key, () -> (Number) count.getAsLong());
+        return total.longValue();
+    }
+}
@@ -1,40 +1,55 @@
 package com.distrischool.grade.service;
 
-import com.distrischool.grade.dto.ApiResponse;
+import com.distrischool.grade.dto.BulkGradeResponseDTO;
+import com.distrischool.grade.dto.ClassAverageReconciliationDTO;
+import com.distrischool.grade.dto.ClassGradeSummaryBatchDTO;
 import com.distrischool.grade.dto.ClassGradeSummaryDTO;
 import com.distrischool.grade.dto.ClassInfoDTO;
+import com.distrischool.grade.dto.CursorPageDTO;
+import com.distrischool.grade.dto.EvaluationRosterGradesRequestDTO;
+import com.distrischool.grade.dto.EvaluationRosterGradesResponseDTO;
 import com.distrischool.grade.dto.GradeRequestDTO;
 import com.distrischool.grade.dto.GradeResponseDTO;
+import com.distrischool.grade.dto.StudentRankingDTO;
 import com.distrischool.grade.entity.Grade;
 import com.distrischool.grade.entity.Grade.GradeStatus;
 import com.distrischool.grade.exception.BusinessException;
 import com.distrischool.grade.exception.ResourceNotFoundException;
-import com.distrischool.grade.feign.AuthServiceClient;
-import com.distrischool.grade.feign.ClassServiceClient;
-import com.distrischool.grade.feign.StudentServiceClient;
 import com.distrischool.grade.kafka.DistriSchoolEvent;
-import com.distrischool.grade.kafka.EventProducer;
+import com.distrischool.grade.kafka.EventOutbox;
 import com.distrischool.grade.repository.GradeRepository;
-import feign.FeignException;
+import com.distrischool.grade.repository.GradeRepository.GradeSnapshot;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service para gerenciamento de notas
@@ -45,11 +60,43 @@
 @Transactional(readOnly = true)
 public class GradeService {
 
+    /**
+     * Tamanho dos blocos gravados antes de limpar o contexto de persistência
+     * (igual ao hibernate.jdbc.batch_size)
+     */
+    private static final int BULK_FLUSH_SIZE = 50;
+
+    private static final String GRADE_AGGREGATE = "grade";
+
+    /**
+     * Posições anteriores à primeira nota de cada ordenação por cursor
+     */
+    private static final LocalDate CURSOR_FIRST_DATE = LocalDate.of(9999, 12, 31);
+    private static final BigDecimal CURSOR_FIRST_VALUE = BigDecimal.valueOf(-1);
+
     private final GradeRepository gradeRepository;
-    private final EventProducer eventProducer;
-    private final StudentServiceClient studentServiceClient;
-    private final ClassServiceClient classServiceClient;
-    private final AuthServiceClient authServiceClient;
+    private final EventOutbox eventOutbox;
+    private final RemoteValidationService remoteValidationService;
+    private final StudentIdResolver studentIdResolver;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final GradeCacheGenerations cacheGenerations;
+    private final StudentTermStatsService termStats;
+    private final GradeAggregates gradeAggregates;
+    private final ClassAverageIndex classAverages;
+    private final GradeListingCounts listingCounts;
+
+    @Value("${microservice.grades.bulk.max-size:1000}")
+    private int bulkMaxSize;
+
+    @Value("${microservice.grades.ranking.max-size:100}")
+    private int rankingMaxSize;
+
+    @Value("${microservice.grades.summary-batch.max-classes:100}")
+    private int summaryBatchMaxClasses;
+
+    @Value("${microservice.grades.cursor.max-size:1000}")
+    private int cursorMaxSize;
 
     @Value("${microservice.kafka.topics.grade-created}")
     private String gradeCreatedTopic;
@@ -64,18 +111,15 @@ public class GradeService {
      * Cria uma nova nota
      */
     @Transactional
-    @CacheEvict(value = "grades", allEntries = true)
     public GradeResponseDTO createGrade(GradeRequestDTO request, String createdBy) {
         log.info("Criando nova nota - Aluno: {}, Avaliação: {}", request.getStudentId(), request.getEvaluationId());
 
         // Validações de negócio
         validateGradeRequest(request);
 
-        // Valida se o estudante existe (integração com Student Service)
-        validateStudentExists(request.getStudentId());
-
-        // Valida se a turma existe e se o estudante pertence a ela
-        validateClassAndStudent(request.getClassId(), request.getStudentId());
+        // Valida em paralelo se o estudante existe (Student Service) e se a turma
+        // existe e contém o estudante (Class Service)
+        remoteValidationService.validateStudentAndClass(request.getStudentId(), request.getClassId());
 
         // Verifica se já existe nota para este aluno nesta avaliação
         gradeRepository.findByStudentIdAndEvaluationId(request.getStudentId(), request.getEvaluationId())
@@ -84,25 +128,12 @@ public GradeResponseDTO createGrade(GradeRequestDTO request, String createdBy) {
                 });
 
         // Cria a entidade
-        Grade grade = Grade.builder()
-                .studentId(request.getStudentId())
-                .teacherId(request.getTeacherId())
-                .classId(request.getClassId())
-                .evaluationId(request.getEvaluationId())
-                .gradeValue(request.getGradeValue())
-                .gradeDate(request.getGradeDate())
-                .notes(request.getNotes())
-                .status(request.getStatus() != null ? request.getStatus() : GradeStatus.REGISTERED)
-                .isAutomatic(request.getIsAutomatic() != null ? request.getIsAutomatic() : false)
-                .academicYear(request.getAcademicYear())
-                .academicSemester(request.getAcademicSemester())
-                .build();
-
-        grade.setCreatedBy(createdBy);
-        grade.setUpdatedBy(createdBy);
+        Grade grade = buildGrade(request, createdBy);
 
         // Salva no banco
         Grade savedGrade = gradeRepository.save(grade);
+        gradeAggregates.recordChange(null, gradeAggregates.capture(savedGrade));
+        cacheGenerations.invalidate(savedGrade);
         log.info("Nota criada com sucesso: ID={}, Aluno={}, Valor={}", 
                  savedGrade.getId(), savedGrade.getStudentId(), savedGrade.getGradeValue());
 
@@ -112,10 +143,221 @@ public GradeResponseDTO createGrade(GradeRequestDTO request, String createdBy) {
         return GradeResponseDTO.fromEntity(savedGrade);
     }
 
+    /**
+     * Cria notas em lote (ex.: lançamento de uma prova inteira).
+     * Cada linha é validada individualmente; as linhas inválidas são reportadas no
+     * resultado e as válidas são gravadas em uma única transação com JDBC batching.
+     */
+    @Transactional
+    public BulkGradeResponseDTO createGradesBulk(List<GradeRequestDTO> requests, String createdBy) {
+        if (requests == null || requests.isEmpty()) {
+            throw new BusinessException("A lista de notas não pode ser vazia");
+        }
+        if (requests.size() > bulkMaxSize) {
+            throw new BusinessException(String.format("O lote deve ter no máximo %d notas", bulkMaxSize));
+        }
+        log.info("Criando notas em lote - Quantidade: {}", requests.size());
+
+        BulkGradeResponseDTO.RowResultDTO[] results = new BulkGradeResponseDTO.RowResultDTO[requests.size()];
+
+        // Validações locais (bean validation + regras de negócio), sem I/O
+        for (int i = 0; i < requests.size(); i++) {
+            GradeRequestDTO request = requests.get(i);
+            String error = validateBulkRow(request);
+            if (error != null) {
+                results[i] = failedRow(i, request, error);
+            }
+        }
+
+        // Validações remotas: uma chamada por aluno e por turma distintos do lote, em paralelo
+        Set<Long> studentIds = new HashSet<>();
+        Set<Long> classIds = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] == null) {
+                studentIds.add(requests.get(i).getStudentId());
+                classIds.add(requests.get(i).getClassId());
+            }
+        }
+        Map<Long, String> classErrors = new HashMap<>();
+        Map<Long, ClassInfoDTO> classInfos = remoteValidationService.fetchClasses(classIds, classErrors);
+        Map<Long, String> studentErrors = remoteValidationService.validateStudents(studentIds);
+
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            GradeRequestDTO request = requests.get(i);
+            String error = studentErrors.get(request.getStudentId());
+            if (error == null) {
+                error = classErrors.get(request.getClassId());
+            }
+            if (error == null) {
+                ClassInfoDTO classInfo = classInfos.get(request.getClassId());
+                error = captureBusinessError(() ->
+                        remoteValidationService.validateStudentBelongsToClass(request.getStudentId(), classInfo));
+            }
+            if (error != null) {
+                results[i] = failedRow(i, request, error);
+            }
+        }
+
+        // Duplicidade: uma única consulta para o lote + duplicatas dentro do próprio lote
+        Set<String> takenPairs = findExistingPairs(requests, results);
+        List<Grade> toSave = new ArrayList<>();
+        List<Integer> toSaveIndexes = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            GradeRequestDTO request = requests.get(i);
+            if (!takenPairs.add(studentEvaluationKey(request.getStudentId(), request.getEvaluationId()))) {
+                results[i] = failedRow(i, request, "Já existe uma nota para este aluno nesta avaliação");
+                continue;
+            }
+            toSave.add(buildGrade(request, createdBy));
+            toSaveIndexes.add(i);
+        }
+
+        // Persiste em blocos do tamanho do batch JDBC, limpando o contexto de persistência.
+        // Os eventos do bloco entram no outbox antes do flush para serem gravados no mesmo lote
+        for (int from = 0; from < toSave.size(); from += BULK_FLUSH_SIZE) {
+            List<Grade> chunk = toSave.subList(from, Math.min(from + BULK_FLUSH_SIZE, toSave.size()));
+            gradeRepository.saveAll(chunk);
+            chunk.forEach(this::publishGradeCreatedEvent);
+            gradeRepository.flush();
+            entityManager.clear();
+        }
+        gradeAggregates.recordChanges(List.of(), capture(toSave));
+        cacheGenerations.invalidate(toSave);
+
+        for (int j = 0; j < toSave.size(); j++) {
+            Grade saved = toSave.get(j);
+            int index = toSaveIndexes.get(j);
+            results[index] = BulkGradeResponseDTO.RowResultDTO.builder()
+                    .index(index)
+                    .success(true)
+                    .gradeId(saved.getId())
+                    .studentId(saved.getStudentId())
+                    .evaluationId(saved.getEvaluationId())
+                    .message("Nota criada com sucesso")
+                    .build();
+        }
+
+        int created = toSave.size();
+        log.info("Lote de notas processado - Criadas: {}, Com erro: {}", created, requests.size() - created);
+
+        return BulkGradeResponseDTO.builder()
+                .totalRequested(requests.size())
+                .created(created)
+                .failed(requests.size() - created)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    /**
+     * Sincroniza as notas de uma turma em uma avaliação a partir da lista completa enviada.
+     * A turma é consultada uma única vez e apenas as diferenças são gravadas:
+     * novos alunos são inseridos, notas alteradas são atualizadas e alunos
+     * ausentes da lista têm a nota removida (soft delete).
+     */
+    @Transactional
+    public EvaluationRosterGradesResponseDTO replaceEvaluationGrades(Long evaluationId,
+                                                                     EvaluationRosterGradesRequestDTO request,
+                                                                     String updatedBy) {
+        log.info("Sincronizando notas da avaliação {} para a turma {} - Alunos: {}",
+                 evaluationId, request.getClassId(), request.getGrades().size());
+
+        Map<Long, EvaluationRosterGradesRequestDTO.RosterGradeDTO> roster = new LinkedHashMap<>();
+        for (EvaluationRosterGradesRequestDTO.RosterGradeDTO entry : request.getGrades()) {
+            validateGradeValue(entry.getGradeValue());
+            if (roster.put(entry.getStudentId(), entry) != null) {
+                throw new BusinessException("Aluno informado mais de uma vez: " + entry.getStudentId());
+            }
+        }
+
+        // Uma única consulta à turma valida todos os alunos da lista
+        ClassInfoDTO classInfo = remoteValidationService.fetchClassInfo(request.getClassId());
+        roster.keySet().forEach(studentId ->
+                remoteValidationService.validateStudentBelongsToClass(studentId, classInfo));
+
+        Map<Long, Grade> existingByStudent = new HashMap<>();
+        for (Grade grade : gradeRepository.lockEvaluationGrades(evaluationId)) {
+            if (Objects.equals(grade.getClassId(), request.getClassId())) {
+                existingByStudent.put(grade.getStudentId(), grade);
+            } else if (roster.containsKey(grade.getStudentId())) {
+                throw new BusinessException(String.format(
+                        "Aluno %d já possui nota nesta avaliação em outra turma", grade.getStudentId()));
+            }
+        }
+
+        List<Grade> rosterGrades = new ArrayList<>();
+        List<Grade> inserted = new ArrayList<>();
+        List<Grade> updated = new ArrayList<>();
+        List<Grade> deleted = new ArrayList<>();
+        // Estado das notas alteradas/removidas antes da alteração, para os agregados
+        List<GradeAggregates.GradeState> previousStates = new ArrayList<>();
+        int unchanged = 0;
+
+        for (EvaluationRosterGradesRequestDTO.RosterGradeDTO entry : roster.values()) {
+            Grade current = existingByStudent.remove(entry.getStudentId());
+            if (current == null) {
+                current = buildGrade(toGradeRequest(evaluationId, request, entry), updatedBy);
+                inserted.add(current);
+            } else {
+                GradeAggregates.GradeState previous = gradeAggregates.capture(current);
+                if (applyRosterEntry(current, entry, request.getGradeDate())) {
+                    current.setUpdatedBy(updatedBy);
+                    updated.add(current);
+                    previousStates.add(previous);
+                } else {
+                    unchanged++;
+                }
+            }
+            rosterGrades.add(current);
+        }
+
+        for (Grade removed : existingByStudent.values()) {
+            previousStates.add(gradeAggregates.capture(removed));
+            removed.markAsDeleted(updatedBy);
+            deleted.add(removed);
+        }
+
+        gradeRepository.saveAll(inserted);
+        gradeRepository.saveAll(updated);
+        gradeRepository.saveAll(deleted);
+        gradeRepository.flush();
+        List<GradeAggregates.GradeState> currentStates = new ArrayList<>(capture(inserted));
+        currentStates.addAll(capture(updated));
+        currentStates.addAll(capture(deleted));
+        gradeAggregates.recordChanges(previousStates, currentStates);
+        cacheGenerations.invalidate(inserted);
+        cacheGenerations.invalidate(updated);
+        cacheGenerations.invalidate(deleted);
+
+        inserted.forEach(this::publishGradeCreatedEvent);
+        updated.forEach(this::publishGradeUpdatedEvent);
+        deleted.forEach(this::publishGradeDeletedEvent);
+
+        log.info("Avaliação {} sincronizada - Inseridas: {}, Atualizadas: {}, Removidas: {}, Inalteradas: {}",
+                 evaluationId, inserted.size(), updated.size(), deleted.size(), unchanged);
+
+        return EvaluationRosterGradesResponseDTO.builder()
+                .evaluationId(evaluationId)
+                .classId(request.getClassId())
+                .inserted(inserted.size())
+                .updated(updated.size())
+                .deleted(deleted.size())
+                .unchanged(unchanged)
+                .grades(rosterGrades.stream()
+                        .map(GradeResponseDTO::fromEntity)
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
     /**
      * Busca nota por ID
      */
-    @Cacheable(value = "grades", key = "#id")
+    @Cacheable(value = GradeCacheGenerations.GRADES_CACHE, key = "#id")
     public GradeResponseDTO getGradeById(Long id) {
         log.debug("Buscando nota por ID: {}", id);
         Grade grade = findGradeByIdOrThrow(id);
@@ -123,116 +365,115 @@ public GradeResponseDTO getGradeById(Long id) {
     }
 
     /**
-     * Lista todas as notas com paginação
+     * Lista todas as notas com paginação.
+     * Com withTotal a página traz o total (contagem em cache); sem ele, apenas se há próxima página.
      */
-    public Page<GradeResponseDTO> getAllGrades(Pageable pageable) {
+    public Slice<GradeResponseDTO> getAllGrades(Pageable pageable, boolean withTotal) {
         log.debug("Listando todas as notas - Página: {}", pageable.getPageNumber());
-        return gradeRepository.findAllNotDeleted(pageable)
-                .map(GradeResponseDTO::fromEntity);
+        Slice<GradeResponseDTO> grades = gradeRepository.sliceAllNotDeleted(pageable);
+        return withTotal(grades, withTotal, listingCounts::countAll);
     }
 
     /**
      * Busca notas por aluno
      */
-    public Page<GradeResponseDTO> getGradesByStudent(Long studentId, Pageable pageable) {
+    public Slice<GradeResponseDTO> getGradesByStudent(Long studentId, Pageable pageable, boolean withTotal) {
         log.debug("Buscando notas do aluno: {}", studentId);
-        return gradeRepository.findByStudentId(studentId, pageable)
-                .map(GradeResponseDTO::fromEntity);
+        Slice<GradeResponseDTO> grades = gradeRepository.sliceByStudentId(studentId, pageable);
+        return withTotal(grades, withTotal, () -> listingCounts.countByStudent(studentId));
     }
 
     /**
      * Busca notas por avaliação
      */
-    public Page<GradeResponseDTO> getGradesByEvaluation(Long evaluationId, Pageable pageable) {
+    public Slice<GradeResponseDTO> getGradesByEvaluation(Long evaluationId, Pageable pageable, boolean withTotal) {
         log.debug("Buscando notas da avaliação: {}", evaluationId);
-        return gradeRepository.findByEvaluationId(evaluationId, pageable)
-                .map(GradeResponseDTO::fromEntity);
+        Slice<GradeResponseDTO> grades = gradeRepository.sliceByEvaluationId(evaluationId, pageable);
+        return withTotal(grades, withTotal, () -> listingCounts.countByEvaluation(evaluationId));
+    }
+
+    /**
+     * Lista todas as notas por cursor (ordem de ID), para sincronizações que percorrem tudo
+     */
+    public CursorPageDTO<GradeResponseDTO> getAllGradesByCursor(String cursor, int size) {
+        validateCursorPageSize(size);
+        GradeCursor position = GradeCursor.decode(cursor, "all");
+        long afterId = position != null ? position.id() : 0L;
+        log.debug("Listando notas por cursor - Após ID: {}, Tamanho: {}", afterId, size);
+        List<GradeResponseDTO> grades = gradeRepository.findAllNotDeletedAfter(afterId, PageRequest.of(0, size + 1));
+        return toCursorPage(grades, size, grade -> new GradeCursor("all", "", grade.getId()));
+    }
+
+    /**
+     * Busca notas do aluno por cursor (data desc, id desc)
+     */
+    public CursorPageDTO<GradeResponseDTO> getGradesByStudentCursor(Long studentId, String cursor, int size) {
+        validateCursorPageSize(size);
+        String listing = "student-" + studentId;
+        GradeCursor position = GradeCursor.decode(cursor, listing);
+        LocalDate afterDate = CURSOR_FIRST_DATE;
+        long afterId = Long.MAX_VALUE;
+        if (position != null) {
+            afterDate = parseCursorKey(position.sortKey(), LocalDate::parse);
+            afterId = position.id();
+        }
+        log.debug("Buscando notas do aluno por cursor: {}", studentId);
+        List<GradeResponseDTO> grades = gradeRepository.findByStudentIdAfter(studentId, afterDate, afterId, PageRequest.of(0, size + 1));
+        return toCursorPage(grades, size,
+                grade -> new GradeCursor(listing, grade.getGradeDate().toString(), grade.getId()));
+    }
+
+    /**
+     * Busca notas da avaliação por cursor (valor asc, id asc)
+     */
+    public CursorPageDTO<GradeResponseDTO> getGradesByEvaluationCursor(Long evaluationId, String cursor, int size) {
+        validateCursorPageSize(size);
+        String listing = "evaluation-" + evaluationId;
+        GradeCursor position = GradeCursor.decode(cursor, listing);
+        BigDecimal afterValue = CURSOR_FIRST_VALUE;
+        long afterId = 0L;
+        if (position != null) {
+            afterValue = parseCursorKey(position.sortKey(), BigDecimal::new);
+            afterId = position.id();
+        }
+        log.debug("Buscando notas da avaliação por cursor: {}", evaluationId);
+        List<GradeResponseDTO> grades = gradeRepository.findByEvaluationIdAfter(evaluationId, afterValue, afterId, PageRequest.of(0, size + 1));
+        return toCursorPage(grades, size,
+                grade -> new GradeCursor(listing, grade.getGradeValue().toPlainString(), grade.getId()));
     }
 
     /**
      * Busca notas por userId (busca o studentId associado e retorna as notas)
      */
-    public Page<GradeResponseDTO> getGradesByUserId(Long userId, Pageable pageable) {
+    public Slice<GradeResponseDTO> getGradesByUserId(Long userId, Pageable pageable, boolean withTotal) {
         log.debug("Buscando notas para userId: {}", userId);
         
         // Busca o studentId através do auth service
-        Long studentId = getStudentIdByUserId(userId);
+        Long studentId = studentIdResolver.resolve(userId);
         
         if (studentId == null) {
             throw new BusinessException("Usuário não possui um studentId associado");
         }
         
         log.debug("StudentId encontrado para userId {}: {}", userId, studentId);
-        return getGradesByStudent(studentId, pageable);
-    }
-
-    /**
-     * Busca o studentId associado a um userId através do auth service
-     */
-    private Long getStudentIdByUserId(Long userId) {
-        try {
-            // Tenta primeiro o endpoint específico para student-id
-            ApiResponse<Map<String, Object>> response = null;
-            try {
-                response = authServiceClient.getStudentIdByUserId(userId);
-            } catch (FeignException.NotFound e) {
-                log.debug("Endpoint /student-id não encontrado, tentando endpoint genérico");
-                // Se não encontrar, tenta o endpoint genérico
-                response = authServiceClient.getUserById(userId);
-            }
-            
-            if (response == null || !response.isSuccess() || response.getData() == null) {
-                log.warn("Não foi possível encontrar studentId para userId: {}", userId);
-                return null;
-            }
-            
-            Map<String, Object> data = response.getData();
-            Object studentIdObj = data.get("studentId");
-            
-            if (studentIdObj == null) {
-                log.warn("Resposta do auth service não contém studentId para userId: {}", userId);
-                return null;
-            }
-            
-            // Converte o studentId para Long
-            if (studentIdObj instanceof Number) {
-                return ((Number) studentIdObj).longValue();
-            } else if (studentIdObj instanceof String) {
-                try {
-                    return Long.parseLong((String) studentIdObj);
-                } catch (NumberFormatException e) {
-                    log.error("Erro ao converter studentId para Long: {}", studentIdObj, e);
-                    return null;
-                }
-            }
-            
-            log.warn("Tipo de studentId não suportado: {}", studentIdObj.getClass());
-            return null;
-        } catch (FeignException.NotFound e) {
-            log.warn("Usuário não encontrado - userId: {}", userId);
-            return null;
-        } catch (FeignException e) {
-            log.error("Erro ao buscar studentId - userId: {}, Erro: {}", userId, e.getMessage());
-            throw new BusinessException("Erro ao buscar studentId. Tente novamente mais tarde.");
-        } catch (Exception e) {
-            log.error("Erro inesperado ao buscar studentId - userId: {}", userId, e);
-            throw new BusinessException("Erro ao buscar studentId: " + e.getMessage());
-        }
+        return getGradesByStudent(studentId, pageable, withTotal);
     }
 
     /**
      * Atualiza uma nota
      */
     @Transactional
-    @CacheEvict(value = "grades", allEntries = true)
     public GradeResponseDTO updateGrade(Long id, GradeRequestDTO request, String updatedBy) {
         log.info("Atualizando nota: ID={}", id);
 
-        Grade grade = findGradeByIdOrThrow(id);
+        Grade grade = lockGradeByIdOrThrow(id);
         validateGradeRequest(request);
+        // Captura a turma anterior caso a nota seja movida de turma
+        cacheGenerations.invalidate(grade);
+        GradeAggregates.GradeState previous = gradeAggregates.capture(grade);
 
         if (!Objects.equals(grade.getClassId(), request.getClassId())) {
-            validateClassAndStudent(request.getClassId(), grade.getStudentId());
+            remoteValidationService.validateClassAndStudent(request.getClassId(), grade.getStudentId());
             grade.setClassId(request.getClassId());
         }
 
@@ -246,6 +487,8 @@ public GradeResponseDTO updateGrade(Long id, GradeRequestDTO request, String upd
         grade.setUpdatedBy(updatedBy);
 
         Grade updatedGrade = gradeRepository.save(grade);
+        gradeAggregates.recordChange(previous, gradeAggregates.capture(updatedGrade));
+        cacheGenerations.invalidate(updatedGrade);
         log.info("Nota atualizada com sucesso: ID={}", updatedGrade.getId());
 
         // Publica evento Kafka
@@ -258,13 +501,15 @@ public GradeResponseDTO updateGrade(Long id, GradeRequestDTO request, String upd
      * Deleta uma nota (soft delete)
      */
     @Transactional
-    @CacheEvict(value = "grades", allEntries = true)
     public void deleteGrade(Long id, String deletedBy) {
         log.info("Deletando nota: ID={}", id);
 
-        Grade grade = findGradeByIdOrThrow(id);
+        Grade grade = lockGradeByIdOrThrow(id);
+        GradeAggregates.GradeState previous = gradeAggregates.capture(grade);
         grade.markAsDeleted(deletedBy);
         gradeRepository.save(grade);
+        gradeAggregates.recordChange(previous, gradeAggregates.capture(grade));
+        cacheGenerations.invalidate(grade);
 
         log.info("Nota deletada com sucesso: ID={}", id);
 
@@ -273,19 +518,30 @@ public void deleteGrade(Long id, String deletedBy) {
     }
 
     /**
-     * Calcula a média de um aluno
+     * Calcula a média de um aluno (consulta pela chave em student_term_stats)
      */
     public BigDecimal calculateAverageGrade(Long studentId, Integer academicYear, Integer academicSemester) {
         log.debug("Calculando média do aluno: {}, Ano: {}, Semestre: {}", 
                   studentId, academicYear, academicSemester);
         
-        BigDecimal average = gradeRepository.calculateAverageGrade(studentId, academicYear, academicSemester);
-        return average != null ? average : BigDecimal.ZERO;
+        return termStats.average(studentId, academicYear, academicSemester);
+    }
+
+    /**
+     * Recalcula do zero as estatísticas de notas por aluno e período
+     */
+    @Transactional
+    public int rebuildStudentTermStats() {
+        log.info("Recalculando estatísticas de notas por aluno e período");
+        return termStats.rebuild();
     }
 
     /**
      * Retorna o detalhamento das notas de uma turma (classe).
      */
+    @Cacheable(value = GradeCacheGenerations.AGGREGATES_CACHE,
+               key = "'class-summary:' + #classId + ':' + #academicYear + ':' + #academicSemester"
+                   + " + ':' + #maxGradesPerStudent + ':g' + @gradeCacheGenerations.forClass(#classId)")
     public ClassGradeSummaryDTO getClassGradeDetails(Long classId,
                                                      Integer academicYear,
                                                      Integer academicSemester,
@@ -294,70 +550,193 @@ public ClassGradeSummaryDTO getClassGradeDetails(Long classId,
                   classId, academicYear, academicSemester, maxGradesPerStudent);
 
         int normalizedLimit = normalizeMaxGradesLimit(maxGradesPerStudent);
-        ClassInfoDTO classInfo = fetchClassInfo(classId);
-        List<Grade> grades = loadGradesForClass(classId, academicYear, academicSemester);
+        ClassInfoDTO classInfo = remoteValidationService.fetchClassInfo(classId);
+        // Apenas as notas mais recentes de cada aluno (até o limite) são lidas, em streaming
+        Map<Long, List<GradeSnapshot>> gradesByStudent;
+        try (Stream<GradeSnapshot> grades = gradeRepository.streamLatestClassGrades(
+                classId, academicYear, academicSemester, normalizedLimit)) {
+            gradesByStudent = foldLatestGradesByStudent(grades, normalizedLimit);
+        }
+
+        return buildClassGradeSummary(classInfo, gradesByStudent, normalizedLimit);
+    }
+
+    /**
+     * Retorna o detalhamento das notas de várias turmas de uma vez.
+     * As turmas são buscadas em paralelo (ou no cache local), as notas em uma única consulta
+     * e os resumos montados em paralelo. Turmas inválidas não interrompem o lote.
+     */
+    public ClassGradeSummaryBatchDTO getClassesGradeDetails(List<Long> classIds,
+                                                            Integer academicYear,
+                                                            Integer academicSemester,
+                                                            int maxGradesPerStudent) {
+        if (classIds == null || classIds.isEmpty()) {
+            throw new BusinessException("A lista de turmas não pode ser vazia");
+        }
+        Set<Long> requestedIds = new LinkedHashSet<>(classIds);
+        if (requestedIds.contains(null)) {
+            throw new BusinessException("ID da turma é obrigatório");
+        }
+        if (requestedIds.size() > summaryBatchMaxClasses) {
+            throw new BusinessException(String.format("O lote deve ter no máximo %d turmas", summaryBatchMaxClasses));
+        }
+        log.debug("Listando notas de {} turmas, Ano: {}, Semestre: {}, Limite: {}",
+                  requestedIds.size(), academicYear, academicSemester, maxGradesPerStudent);
+
+        int normalizedLimit = normalizeMaxGradesLimit(maxGradesPerStudent);
+        Map<Long, String> classErrors = new HashMap<>();
+        Map<Long, ClassInfoDTO> classInfos = remoteValidationService.fetchClasses(requestedIds, classErrors);
+        List<Long> foundIds = requestedIds.stream()
+                .filter(classInfos::containsKey)
+                .toList();
+
+        Map<Long, Map<Long, List<GradeSnapshot>>> gradesByClass = new HashMap<>();
+        if (!foundIds.isEmpty()) {
+            try (Stream<GradeSnapshot> grades = gradeRepository.streamLatestGradesForClasses(
+                    foundIds, academicYear, academicSemester, normalizedLimit)) {
+                grades.forEach(grade -> addLatestGrade(
+                        gradesByClass.computeIfAbsent(grade.getClassId(), classId -> new HashMap<>()),
+                        grade, normalizedLimit));
+            }
+        }
 
-        return buildClassGradeSummary(classInfo, grades, normalizedLimit);
+        // A montagem dos resumos só usa dados em memória e pode ser feita em paralelo
+        List<ClassGradeSummaryDTO> summaries = foundIds.parallelStream()
+                .map(classId -> buildClassGradeSummary(classInfos.get(classId),
+                        gradesByClass.getOrDefault(classId, Map.of()), normalizedLimit))
+                .toList();
+
+        List<ClassGradeSummaryBatchDTO.ClassErrorDTO> errors = requestedIds.stream()
+                .filter(classErrors::containsKey)
+                .map(classId -> ClassGradeSummaryBatchDTO.ClassErrorDTO.builder()
+                        .classId(classId)
+                        .message(classErrors.get(classId))
+                        .build())
+                .toList();
+
+        return ClassGradeSummaryBatchDTO.builder()
+                .totalRequested(requestedIds.size())
+                .failed(errors.size())
+                .classes(summaries)
+                .errors(errors)
+                .build();
     }
 
     /**
      * Calcula a média consolidada de uma turma considerando até 3 notas por aluno.
+     * Com ano e semestre informados a média vem do Redis ({@link ClassAverageIndex});
+     * sem eles, ou com o índice frio, o cálculo é feito no banco.
+     * A turma ainda é consultada para validar sua existência.
      */
+    @Cacheable(value = GradeCacheGenerations.AGGREGATES_CACHE,
+               key = "'class-average:' + #classId + ':' + #academicYear + ':' + #academicSemester"
+                   + " + ':' + #maxGradesPerStudent + ':g' + @gradeCacheGenerations.forClass(#classId)")
     public BigDecimal calculateClassAverage(Long classId,
                                             Integer academicYear,
                                             Integer academicSemester,
                                             int maxGradesPerStudent) {
-        ClassGradeSummaryDTO summary = getClassGradeDetails(classId, academicYear, academicSemester, maxGradesPerStudent);
-        return summary.getClassAverage();
+        remoteValidationService.fetchClassInfo(classId);
+        int normalizedLimit = normalizeMaxGradesLimit(maxGradesPerStudent);
+        if (academicYear != null && academicSemester != null) {
+            BigDecimal indexed = classAverages.classAverage(classId, academicYear, academicSemester, normalizedLimit);
+            if (indexed != null) {
+                return indexed;
+            }
+        }
+        return gradeRepository.calculateClassAverage(classId, academicYear, academicSemester, normalizedLimit);
     }
 
     /**
      * Calcula a média geral entre todas as turmas que possuem notas registradas.
      */
+    @Cacheable(value = GradeCacheGenerations.AGGREGATES_CACHE,
+               key = "'global-average:' + #academicYear + ':' + #academicSemester"
+                   + " + ':' + #maxGradesPerStudent + ':g' + @gradeCacheGenerations.global()")
     public BigDecimal calculateGlobalClassesAverage(Integer academicYear,
                                                     Integer academicSemester,
                                                     int maxGradesPerStudent) {
         log.debug("Calculando média global entre turmas - Ano: {}, Semestre: {}", academicYear, academicSemester);
 
         int normalizedLimit = normalizeMaxGradesLimit(maxGradesPerStudent);
-        List<Grade> grades = loadAllClassGrades(academicYear, academicSemester);
-
-        if (grades.isEmpty()) {
-            return BigDecimal.ZERO;
+        if (academicYear != null && academicSemester != null) {
+            BigDecimal indexed = classAverages.globalAverage(academicYear, academicSemester, normalizedLimit);
+            if (indexed != null) {
+                return indexed;
+            }
         }
+        // Últimas notas por aluno (ROW_NUMBER) e média das médias calculadas no banco
+        return gradeRepository.calculateGlobalClassesAverage(academicYear, academicSemester, normalizedLimit);
+    }
 
-        Map<Long, List<Grade>> gradesByStudent = grades.stream()
-                .collect(Collectors.groupingBy(Grade::getStudentId));
-
-        List<BigDecimal> studentAverages = gradesByStudent.values().stream()
-                .map(studentGrades -> calculateAverage(selectGradesForStudent(studentGrades, normalizedLimit)))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        if (studentAverages.isEmpty()) {
-            return BigDecimal.ZERO;
-        }
+    /**
+     * Confere as médias de turma mantidas no Redis com o banco e corrige as divergências
+     */
+    public ClassAverageReconciliationDTO reconcileClassAverages() {
+        log.info("Reconciliando médias de turma no Redis");
+        return classAverages.reconcile();
+    }
 
-        BigDecimal total = studentAverages.stream()
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * Retorna os K alunos com maior média (mesma regra do detalhamento da turma).
+     * A seleção é feita no banco com LIMIT, sem montar o resumo completo da turma.
+     */
+    @Cacheable(value = GradeCacheGenerations.AGGREGATES_CACHE,
+               key = "'class-ranking:' + #classId + ':' + #academicYear + ':' + #academicSemester"
+                   + " + ':' + #maxGradesPerStudent + ':' + #k + ':g' + @gradeCacheGenerations.forClass(#classId)")
+    public StudentRankingDTO getClassRanking(Long classId,
+                                             Integer academicYear,
+                                             Integer academicSemester,
+                                             int maxGradesPerStudent,
+                                             int k) {
+        validateRankingSize(k);
+        int normalizedLimit = normalizeMaxGradesLimit(maxGradesPerStudent);
+        remoteValidationService.fetchClassInfo(classId);
+        List<GradeRepository.StudentRanking> rows = gradeRepository.findClassRanking(
+                classId, academicYear, academicSemester, normalizedLimit, k);
+        return buildRanking(classId, academicYear, academicSemester, normalizedLimit, k, rows);
+    }
 
-        return total.divide(BigDecimal.valueOf(studentAverages.size()), 2, RoundingMode.HALF_UP);
+    /**
+     * Retorna os K alunos com maior média considerando todas as turmas do período.
+     */
+    @Cacheable(value = GradeCacheGenerations.AGGREGATES_CACHE,
+               key = "'global-ranking:' + #academicYear + ':' + #academicSemester"
+                   + " + ':' + #maxGradesPerStudent + ':' + #k + ':g' + @gradeCacheGenerations.global()")
+    public StudentRankingDTO getGlobalRanking(Integer academicYear,
+                                              Integer academicSemester,
+                                              int maxGradesPerStudent,
+                                              int k) {
+        validateRankingSize(k);
+        int normalizedLimit = normalizeMaxGradesLimit(maxGradesPerStudent);
+        log.debug("Calculando ranking global - Ano: {}, Semestre: {}, K: {}", academicYear, academicSemester, k);
+        List<GradeRepository.StudentRanking> rows = gradeRepository.findGlobalRanking(
+                academicYear, academicSemester, normalizedLimit, k);
+        return buildRanking(null, academicYear, academicSemester, normalizedLimit, k, rows);
     }
 
-    private List<Grade> loadGradesForClass(Long classId, Integer academicYear, Integer academicSemester) {
-        return gradeRepository.findClassGrades(classId, academicYear, academicSemester);
+    /**
+     * Agrupa as notas por aluno à medida que chegam do cursor, mantendo no máximo o limite
+     * por aluno. As projeções não são gerenciadas, então o contexto de persistência não cresce.
+     */
+    private Map<Long, List<GradeSnapshot>> foldLatestGradesByStudent(Stream<GradeSnapshot> grades,
+                                                                     int maxGradesPerStudent) {
+        Map<Long, List<GradeSnapshot>> gradesByStudent = new HashMap<>();
+        grades.forEach(grade -> addLatestGrade(gradesByStudent, grade, maxGradesPerStudent));
+        return gradesByStudent;
     }
 
-    private List<Grade> loadAllClassGrades(Integer academicYear, Integer academicSemester) {
-        return gradeRepository.findAllClassGrades(academicYear, academicSemester);
+    private void addLatestGrade(Map<Long, List<GradeSnapshot>> gradesByStudent, GradeSnapshot grade,
+                                int maxGradesPerStudent) {
+        List<GradeSnapshot> latest = gradesByStudent.computeIfAbsent(grade.getStudentId(),
+                studentId -> new ArrayList<>(maxGradesPerStudent));
+        if (latest.size() < maxGradesPerStudent) {
+            latest.add(grade);
+        }
     }
 
     private ClassGradeSummaryDTO buildClassGradeSummary(ClassInfoDTO classInfo,
-                                                        List<Grade> grades,
+                                                        Map<Long, List<GradeSnapshot>> gradesByStudent,
                                                         int maxGradesPerStudent) {
-        Map<Long, List<Grade>> gradesByStudent = grades.stream()
-                .collect(Collectors.groupingBy(Grade::getStudentId));
-
         LinkedHashSet<Long> orderedStudentIds = new LinkedHashSet<>();
         if (classInfo.getStudentIds() != null) {
             orderedStudentIds.addAll(classInfo.getStudentIds());
@@ -367,25 +746,39 @@ private ClassGradeSummaryDTO buildClassGradeSummary(ClassInfoDTO classInfo,
                 .sorted()
                 .forEach(orderedStudentIds::add);
 
-        List<ClassGradeSummaryDTO.StudentClassGradeDTO> studentSummaries = orderedStudentIds.stream()
-                .map(studentId -> buildStudentSummary(studentId, gradesByStudent.get(studentId), maxGradesPerStudent))
-                .collect(Collectors.toList());
-
-        long studentsWithGrades = studentSummaries.stream()
-                .filter(dto -> dto.getAverage() != null)
-                .count();
-
-        BigDecimal classAverage = studentSummaries.stream()
-                .map(ClassGradeSummaryDTO.StudentClassGradeDTO::getAverage)
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        if (studentsWithGrades > 0) {
-            classAverage = classAverage.divide(BigDecimal.valueOf(studentsWithGrades), 2, RoundingMode.HALF_UP);
-        } else if (!studentSummaries.isEmpty()) {
-            classAverage = BigDecimal.ZERO;
+        // Médias em centésimos: uma entrada por aluno com notas e um buffer reutilizado para as notas
+        List<ClassGradeSummaryDTO.StudentClassGradeDTO> studentSummaries = new ArrayList<>(orderedStudentIds.size());
+        int[] studentAverages = new int[orderedStudentIds.size()];
+        int[] gradeBuffer = new int[maxGradesPerStudent];
+        int studentsWithGrades = 0;
+
+        for (Long studentId : orderedStudentIds) {
+            List<GradeSnapshot> selectedGrades = selectGradesForStudent(gradesByStudent.get(studentId), maxGradesPerStudent);
+            ClassGradeSummaryDTO.StudentClassGradeDTO.StudentClassGradeDTOBuilder builder =
+                    ClassGradeSummaryDTO.StudentClassGradeDTO.builder()
+                            .studentId(studentId)
+                            .grades(selectedGrades.stream()
+                                    .map(this::toGradeSnapshot)
+                                    .collect(Collectors.toList()));
+
+            int gradeCount = 0;
+            for (GradeSnapshot grade : selectedGrades) {
+                if (grade.getGradeValue() != null) {
+                    gradeBuffer[gradeCount++] = GradeAverages.toHundredths(grade.getGradeValue());
+                }
+            }
+            if (gradeCount > 0) {
+                int average = (int) GradeAverages.average(gradeBuffer, gradeCount);
+                builder.average(GradeAverages.fromHundredths(average));
+                studentAverages[studentsWithGrades++] = average;
+            }
+            studentSummaries.add(builder.build());
         }
 
+        BigDecimal classAverage = studentsWithGrades > 0
+                ? GradeAverages.fromHundredths(GradeAverages.average(studentAverages, studentsWithGrades))
+                : BigDecimal.ZERO;
+
         return ClassGradeSummaryDTO.builder()
                 .classId(classInfo.getId())
                 .className(classInfo.getName())
@@ -393,45 +786,27 @@ private ClassGradeSummaryDTO buildClassGradeSummary(ClassInfoDTO classInfo,
                 .period(classInfo.getPeriod())
                 .academicYear(classInfo.getAcademicYear())
                 .totalStudents(orderedStudentIds.size())
-                .studentsWithGrades((int) studentsWithGrades)
+                .studentsWithGrades(studentsWithGrades)
                 .maxGradesPerStudent(maxGradesPerStudent)
-                .classAverage(classAverage != null ? classAverage : BigDecimal.ZERO)
+                .classAverage(classAverage)
                 .students(studentSummaries)
                 .build();
     }
 
-    private ClassGradeSummaryDTO.StudentClassGradeDTO buildStudentSummary(Long studentId,
-                                                                          List<Grade> grades,
-                                                                          int maxGradesPerStudent) {
-        List<Grade> selectedGrades = selectGradesForStudent(grades != null ? grades : List.of(), maxGradesPerStudent);
-        ClassGradeSummaryDTO.StudentClassGradeDTO.StudentClassGradeDTOBuilder builder =
-                ClassGradeSummaryDTO.StudentClassGradeDTO.builder()
-                        .studentId(studentId)
-                        .grades(selectedGrades.stream()
-                                .map(this::toGradeSnapshot)
-                                .collect(Collectors.toList()));
-
-        if (!selectedGrades.isEmpty()) {
-            builder.average(calculateAverage(selectedGrades));
-        }
-
-        return builder.build();
-    }
-
-    private List<Grade> selectGradesForStudent(List<Grade> grades, int maxGradesPerStudent) {
+    private List<GradeSnapshot> selectGradesForStudent(List<GradeSnapshot> grades, int maxGradesPerStudent) {
         if (grades == null || grades.isEmpty()) {
             return List.of();
         }
 
         return grades.stream()
                 .sorted(Comparator
-                        .comparing(Grade::getGradeDate, Comparator.nullsLast(Comparator.reverseOrder()))
-                        .thenComparing(Grade::getId, Comparator.nullsLast(Comparator.reverseOrder())))
+                        .comparing(GradeSnapshot::getGradeDate, Comparator.nullsLast(Comparator.reverseOrder()))
+                        .thenComparing(GradeSnapshot::getId, Comparator.nullsLast(Comparator.reverseOrder())))
                 .limit(maxGradesPerStudent)
                 .collect(Collectors.toList());
     }
 
-    private ClassGradeSummaryDTO.GradeSnapshotDTO toGradeSnapshot(Grade grade) {
+    private ClassGradeSummaryDTO.GradeSnapshotDTO toGradeSnapshot(GradeSnapshot grade) {
         return ClassGradeSummaryDTO.GradeSnapshotDTO.builder()
                 .gradeId(grade.getId())
                 .evaluationId(grade.getEvaluationId())
@@ -442,26 +817,74 @@ private ClassGradeSummaryDTO.GradeSnapshotDTO toGradeSnapshot(Grade grade) {
                 .build();
     }
 
-    private BigDecimal calculateAverage(List<Grade> grades) {
-        if (grades == null || grades.isEmpty()) {
-            return null;
+    private void validateRankingSize(int k) {
+        if (k < 1 || k > rankingMaxSize) {
+            throw new BusinessException(String.format("O ranking deve ter entre 1 e %d alunos", rankingMaxSize));
         }
+    }
 
-        BigDecimal total = grades.stream()
-                .map(Grade::getGradeValue)
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private StudentRankingDTO buildRanking(Long classId,
+                                           Integer academicYear,
+                                           Integer academicSemester,
+                                           int maxGradesPerStudent,
+                                           int k,
+                                           List<GradeRepository.StudentRanking> rows) {
+        List<StudentRankingDTO.EntryDTO> students = new ArrayList<>(rows.size());
+        for (GradeRepository.StudentRanking row : rows) {
+            students.add(StudentRankingDTO.EntryDTO.builder()
+                    .position(students.size() + 1)
+                    .studentId(row.getStudentId())
+                    .average(row.getAverage())
+                    .gradesConsidered(row.getGradeCount().intValue())
+                    .build());
+        }
+        return StudentRankingDTO.builder()
+                .classId(classId)
+                .academicYear(academicYear)
+                .academicSemester(academicSemester)
+                .maxGradesPerStudent(maxGradesPerStudent)
+                .k(k)
+                .students(students)
+                .build();
+    }
 
-        if (total.compareTo(BigDecimal.ZERO) == 0 && grades.stream().allMatch(g -> g.getGradeValue() == null)) {
-            return null;
+    /**
+     * Completa a fatia com o total em cache quando pedido, sem COUNT por página
+     */
+    private static <T> Slice<T> withTotal(Slice<T> grades, boolean withTotal, LongSupplier total) {
+        if (!withTotal) {
+            return grades;
         }
+        return new PageImpl<>(grades.getContent(), grades.getPageable(), total.getAsLong());
+    }
 
-        int divisor = (int) grades.stream().map(Grade::getGradeValue).filter(Objects::nonNull).count();
-        if (divisor == 0) {
-            return null;
+    private void validateCursorPageSize(int size) {
+        if (size < 1 || size > cursorMaxSize) {
+            throw new BusinessException(String.format("O tamanho da página deve estar entre 1 e %d", cursorMaxSize));
         }
+    }
 
-        return total.divide(BigDecimal.valueOf(divisor), 2, RoundingMode.HALF_UP);
+    /**
+     * Monta a página a partir de até size + 1 notas: a nota excedente só indica que há próxima página
+     */
+    private CursorPageDTO<GradeResponseDTO> toCursorPage(List<GradeResponseDTO> grades, int size,
+                                                         Function<GradeResponseDTO, GradeCursor> cursorOf) {
+        boolean hasNext = grades.size() > size;
+        List<GradeResponseDTO> page = hasNext ? grades.subList(0, size) : grades;
+        return CursorPageDTO.<GradeResponseDTO>builder()
+                .content(page)
+                .size(page.size())
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? cursorOf.apply(page.get(page.size() - 1)).encode() : null)
+                .build();
+    }
+
+    private static <T> T parseCursorKey(String sortKey, Function<String, T> parser) {
+        try {
+            return parser.apply(sortKey);
+        } catch (RuntimeException e) {
+            throw new BusinessException("Cursor inválido");
+        }
     }
 
     private int normalizeMaxGradesLimit(int limit) {
@@ -471,39 +894,136 @@ private int normalizeMaxGradesLimit(int limit) {
         return Math.min(limit, 3);
     }
 
-    private ClassInfoDTO validateClassAndStudent(Long classId, Long studentId) {
-        ClassInfoDTO classInfo = fetchClassInfo(classId);
-        validateStudentBelongsToClass(studentId, classInfo);
-        return classInfo;
+    private List<GradeAggregates.GradeState> capture(List<Grade> grades) {
+        return grades.stream()
+                .map(gradeAggregates::capture)
+                .toList();
     }
 
-    private ClassInfoDTO fetchClassInfo(Long classId) {
+    private Grade buildGrade(GradeRequestDTO request, String createdBy) {
+        Grade grade = Grade.builder()
+                .studentId(request.getStudentId())
+                .teacherId(request.getTeacherId())
+                .classId(request.getClassId())
+                .evaluationId(request.getEvaluationId())
+                .gradeValue(request.getGradeValue())
+                .gradeDate(request.getGradeDate())
+                .notes(request.getNotes())
+                .status(request.getStatus() != null ? request.getStatus() : GradeStatus.REGISTERED)
+                .isAutomatic(request.getIsAutomatic() != null ? request.getIsAutomatic() : false)
+                .academicYear(request.getAcademicYear())
+                .academicSemester(request.getAcademicSemester())
+                .build();
+
+        grade.setCreatedBy(createdBy);
+        grade.setUpdatedBy(createdBy);
+        return grade;
+    }
+
+    private GradeRequestDTO toGradeRequest(Long evaluationId,
+                                           EvaluationRosterGradesRequestDTO request,
+                                           EvaluationRosterGradesRequestDTO.RosterGradeDTO entry) {
+        return GradeRequestDTO.builder()
+                .studentId(entry.getStudentId())
+                .teacherId(request.getTeacherId())
+                .classId(request.getClassId())
+                .evaluationId(evaluationId)
+                .gradeValue(entry.getGradeValue())
+                .gradeDate(request.getGradeDate())
+                .notes(entry.getNotes())
+                .status(entry.getStatus())
+                .academicYear(request.getAcademicYear())
+                .academicSemester(request.getAcademicSemester())
+                .build();
+    }
+
+    /**
+     * Aplica a linha da lista sobre a nota existente.
+     * Retorna true se algum campo foi alterado.
+     */
+    private boolean applyRosterEntry(Grade grade,
+                                     EvaluationRosterGradesRequestDTO.RosterGradeDTO entry,
+                                     LocalDate gradeDate) {
+        boolean changed = false;
+        if (grade.getGradeValue() == null || grade.getGradeValue().compareTo(entry.getGradeValue()) != 0) {
+            grade.setGradeValue(entry.getGradeValue());
+            changed = true;
+        }
+        if (!Objects.equals(grade.getNotes(), entry.getNotes())) {
+            grade.setNotes(entry.getNotes());
+            changed = true;
+        }
+        if (entry.getStatus() != null && entry.getStatus() != grade.getStatus()) {
+            grade.setStatus(entry.getStatus());
+            changed = true;
+        }
+        if (!Objects.equals(grade.getGradeDate(), gradeDate)) {
+            grade.setGradeDate(gradeDate);
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Valida uma linha do lote sem acessar serviços externos.
+     * Retorna a mensagem de erro ou null se a linha for válida.
+     */
+    private String validateBulkRow(GradeRequestDTO request) {
+        if (request == null) {
+            return "Nota não informada";
+        }
+        Set<ConstraintViolation<GradeRequestDTO>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        return captureBusinessError(() -> validateGradeRequest(request));
+    }
+
+    private String captureBusinessError(Runnable validation) {
         try {
-            ApiResponse<ClassInfoDTO> response = classServiceClient.getClassById(classId);
-            if (response == null || !response.isSuccess() || response.getData() == null) {
-                throw new BusinessException("Turma não encontrada com ID: " + classId);
-            }
-            return response.getData();
-        } catch (FeignException.NotFound e) {
-            log.warn("Turma não encontrada - ID: {}", classId);
-            throw new BusinessException("Turma não encontrada com ID: " + classId);
-        } catch (FeignException e) {
-            log.error("Erro ao validar turma - ID: {}, Erro: {}", classId, e.getMessage());
-            throw new BusinessException("Erro ao validar turma. Tente novamente mais tarde.");
-        } catch (Exception e) {
-            log.error("Erro inesperado ao validar turma - ID: {}", classId, e);
-            throw new BusinessException("Erro ao validar turma: " + e.getMessage());
+            validation.run();
+            return null;
+        } catch (BusinessException e) {
+            return e.getMessage();
         }
     }
 
-    private void validateStudentBelongsToClass(Long studentId, ClassInfoDTO classInfo) {
-        List<Long> studentIds = classInfo.getStudentIds();
-        if (studentId == null) {
-            throw new BusinessException("ID do aluno é obrigatório");
+    private Set<String> findExistingPairs(List<GradeRequestDTO> requests,
+                                          BulkGradeResponseDTO.RowResultDTO[] results) {
+        Set<Long> studentIds = new HashSet<>();
+        Set<Long> evaluationIds = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] == null) {
+                studentIds.add(requests.get(i).getStudentId());
+                evaluationIds.add(requests.get(i).getEvaluationId());
+            }
+        }
+
+        Set<String> pairs = new HashSet<>();
+        if (studentIds.isEmpty()) {
+            return pairs;
         }
-        if (studentIds != null && !studentIds.isEmpty() && !studentIds.contains(studentId)) {
-            throw new BusinessException(String.format("Aluno %d não pertence à turma %d", studentId, classInfo.getId()));
+        for (Object[] row : gradeRepository.findExistingStudentEvaluationPairs(studentIds, evaluationIds)) {
+            pairs.add(studentEvaluationKey((Long) row[0], (Long) row[1]));
         }
+        return pairs;
+    }
+
+    private String studentEvaluationKey(Long studentId, Long evaluationId) {
+        return studentId + ":" + evaluationId;
+    }
+
+    private BulkGradeResponseDTO.RowResultDTO failedRow(int index, GradeRequestDTO request, String message) {
+        return BulkGradeResponseDTO.RowResultDTO.builder()
+                .index(index)
+                .success(false)
+                .studentId(request != null ? request.getStudentId() : null)
+                .evaluationId(request != null ? request.getEvaluationId() : null)
+                .message(message)
+                .build();
     }
 
     /**
@@ -515,6 +1035,15 @@ private Grade findGradeByIdOrThrow(Long id) {
                 .orElseThrow(() -> new ResourceNotFoundException("Grade", "id", id));
     }
 
+    /**
+     * Busca e bloqueia a nota até o fim da transação (ver {@link GradeRepository#lockById}) ou lança exceção
+     */
+    private Grade lockGradeByIdOrThrow(Long id) {
+        return gradeRepository.lockById(id)
+                .filter(g -> !g.isDeleted())
+                .orElseThrow(() -> new ResourceNotFoundException("Grade", "id", id));
+    }
+
     /**
      * Valida a requisição de nota
      */
@@ -522,39 +1051,21 @@ private void validateGradeRequest(GradeRequestDTO request) {
         if (request.getClassId() == null) {
             throw new BusinessException("ID da turma é obrigatório");
         }
-        if (request.getGradeValue() == null) {
+        validateGradeValue(request.getGradeValue());
+    }
+
+    private void validateGradeValue(BigDecimal gradeValue) {
+        if (gradeValue == null) {
             throw new BusinessException("Valor da nota é obrigatório");
         }
-        if (request.getGradeValue().compareTo(BigDecimal.ZERO) < 0 || 
-            request.getGradeValue().compareTo(new BigDecimal("10.0")) > 0) {
+        if (gradeValue.compareTo(BigDecimal.ZERO) < 0 || 
+            gradeValue.compareTo(new BigDecimal("10.0")) > 0) {
             throw new BusinessException("Nota deve estar entre 0 e 10");
         }
     }
 
     /**
-     * Valida se o estudante existe no microserviço de estudantes
-     */
-    private void validateStudentExists(Long studentId) {
-        try {
-            ApiResponse<?> response = studentServiceClient.getStudentById(studentId);
-            if (response == null || !response.isSuccess()) {
-                throw new BusinessException("Estudante não encontrado com ID: " + studentId);
-            }
-            log.debug("Estudante validado com sucesso - ID: {}", studentId);
-        } catch (FeignException.NotFound e) {
-            log.warn("Estudante não encontrado - ID: {}", studentId);
-            throw new BusinessException("Estudante não encontrado com ID: " + studentId);
-        } catch (FeignException e) {
-            log.error("Erro ao validar estudante - ID: {}, Erro: {}", studentId, e.getMessage());
-            throw new BusinessException("Erro ao validar estudante. Tente novamente mais tarde.");
-        } catch (Exception e) {
-            log.error("Erro inesperado ao validar estudante - ID: {}", studentId, e);
-            throw new BusinessException("Erro ao validar estudante: " + e.getMessage());
-        }
-    }
-
-    /**
-     * Publica evento de nota criada
+     * Registra no outbox o evento de nota criada
      */
     private void publishGradeCreatedEvent(Grade grade) {
         Map<String, Object> data = new HashMap<>();
@@ -567,11 +1078,11 @@ private void publishGradeCreatedEvent(Grade grade) {
         data.put("academicSemester", grade.getAcademicSemester());
 
         DistriSchoolEvent event = DistriSchoolEvent.of("grade.created", "grade-management-service", data);
-        eventProducer.send(gradeCreatedTopic, event);
+        eventOutbox.append(gradeCreatedTopic, GRADE_AGGREGATE, grade.getId(), event);
     }
 
     /**
-     * Publica evento de nota atualizada
+     * Registra no outbox o evento de nota atualizada
      */
     private void publishGradeUpdatedEvent(Grade grade) {
         Map<String, Object> data = new HashMap<>();
@@ -581,11 +1092,11 @@ private void publishGradeUpdatedEvent(Grade grade) {
         data.put("status", grade.getStatus().toString());
 
         DistriSchoolEvent event = DistriSchoolEvent.of("grade.updated", "grade-management-service", data);
-        eventProducer.send(gradeUpdatedTopic, event);
+        eventOutbox.append(gradeUpdatedTopic, GRADE_AGGREGATE, grade.getId(), event);
     }
 
     /**
-     * Publica evento de nota deletada
+     * Registra no outbox o evento de nota deletada
      */
     private void publishGradeDeletedEvent(Grade grade) {
         Map<String, Object> data = new HashMap<>();
@@ -594,7 +1105,7 @@ private void publishGradeDeletedEvent(Grade grade) {
         data.put("evaluationId", grade.getEvaluationId());
 
         DistriSchoolEvent event = DistriSchoolEvent.of("grade.deleted", "grade-management-service", data);
-        eventProducer.send(gradeDeletedTopic, event);
+        eventOutbox.append(gradeDeletedTopic, GRADE_AGGREGATE, grade.getId(), event);
     }
 }
 
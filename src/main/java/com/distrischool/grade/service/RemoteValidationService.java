@@ -0,0 +1,262 @@
+package com.distrischool.grade.service;
+
+import com.distrischool.grade.cache.ClassRosterCache;
+import com.distrischool.grade.dto.ApiResponse;
+import com.distrischool.grade.dto.ClassInfoDTO;
+import com.distrischool.grade.exception.BusinessException;
+import com.distrischool.grade.feign.ClassServiceClient;
+import com.distrischool.grade.feign.StudentServiceClient;
+import com.distrischool.grade.metrics.GradeMetricsRecorder;
+import feign.FeignException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Validações que dependem de outros microserviços (alunos e turmas).
+ * Chamadas independentes são executadas em paralelo em um pool limitado, de forma
+ * que a latência de escrita fique limitada pela dependência mais lenta.
+ */
+@Service
+@Slf4j
+public class RemoteValidationService {
+
+    private static final String DEPENDENCY_STUDENT = "student";
+    private static final String DEPENDENCY_CLASS = "class";
+    private static final String DEPENDENCY_COMBINED = "combined";
+
+    private final StudentServiceClient studentServiceClient;
+    private final ClassServiceClient classServiceClient;
+    private final GradeMetricsRecorder metricsRecorder;
+    private final ClassRosterCache classRosterCache;
+    private final StudentExistenceIndex studentExistenceIndex;
+    private final ThreadPoolTaskExecutor taskExecutor;
+    private final Executor executor;
+
+    public RemoteValidationService(StudentServiceClient studentServiceClient,
+                                   ClassServiceClient classServiceClient,
+                                   GradeMetricsRecorder metricsRecorder,
+                                   ClassRosterCache classRosterCache,
+                                   StudentExistenceIndex studentExistenceIndex,
+                                   @Value("${microservice.remote-calls.pool-size:16}") int poolSize,
+                                   @Value("${microservice.remote-calls.queue-capacity:200}") int queueCapacity) {
+        this.studentServiceClient = studentServiceClient;
+        this.classServiceClient = classServiceClient;
+        this.metricsRecorder = metricsRecorder;
+        this.classRosterCache = classRosterCache;
+        this.studentExistenceIndex = studentExistenceIndex;
+
+        this.taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(poolSize);
+        taskExecutor.setMaxPoolSize(poolSize);
+        taskExecutor.setQueueCapacity(queueCapacity);
+        taskExecutor.setThreadNamePrefix("remote-call-");
+        // Com o pool saturado a chamada roda na própria thread da requisição
+        taskExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        taskExecutor.initialize();
+
+        // Propaga o SecurityContext (token JWT repassado pelo FeignConfig) para as threads do pool
+        this.executor = new DelegatingSecurityContextExecutor(taskExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        taskExecutor.shutdown();
+    }
+
+    /**
+     * Valida em paralelo se o aluno existe e se pertence à turma.
+     * Em caso de falha das duas validações, prevalece o erro do aluno.
+     */
+    public ClassInfoDTO validateStudentAndClass(Long studentId, Long classId) {
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            CompletableFuture<Void> studentCheck =
+                    CompletableFuture.runAsync(() -> validateStudentExists(studentId), executor);
+            CompletableFuture<ClassInfoDTO> classCheck =
+                    CompletableFuture.supplyAsync(() -> fetchClassInfo(classId), executor);
+
+            join(studentCheck);
+            ClassInfoDTO classInfo = join(classCheck);
+            validateStudentBelongsToClass(studentId, classInfo);
+            outcome = "success";
+            return classInfo;
+        } finally {
+            metricsRecorder.recordRemoteValidation(DEPENDENCY_COMBINED, outcome, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Valida se a turma existe e se o aluno pertence a ela
+     */
+    public ClassInfoDTO validateClassAndStudent(Long classId, Long studentId) {
+        ClassInfoDTO classInfo = fetchClassInfo(classId);
+        validateStudentBelongsToClass(studentId, classInfo);
+        return classInfo;
+    }
+
+    /**
+     * Valida em paralelo um conjunto de alunos.
+     * Retorna a mensagem de erro de cada aluno inválido (alunos válidos não aparecem no mapa).
+     */
+    public Map<Long, String> validateStudents(Collection<Long> studentIds) {
+        Map<Long, CompletableFuture<Void>> checks = new LinkedHashMap<>();
+        studentIds.forEach(studentId -> checks.put(studentId,
+                CompletableFuture.runAsync(() -> validateStudentExists(studentId), executor)));
+
+        Map<Long, String> errors = new HashMap<>();
+        checks.forEach((studentId, check) -> {
+            try {
+                join(check);
+            } catch (BusinessException e) {
+                errors.put(studentId, e.getMessage());
+            }
+        });
+        return errors;
+    }
+
+    /**
+     * Busca em paralelo um conjunto de turmas.
+     * As turmas que não puderam ser obtidas têm a mensagem de erro registrada em {@code errors}.
+     */
+    public Map<Long, ClassInfoDTO> fetchClasses(Collection<Long> classIds, Map<Long, String> errors) {
+        Map<Long, CompletableFuture<ClassInfoDTO>> fetches = new LinkedHashMap<>();
+        classIds.forEach(classId -> fetches.put(classId,
+                CompletableFuture.supplyAsync(() -> fetchClassInfo(classId), executor)));
+
+        Map<Long, ClassInfoDTO> classes = new HashMap<>();
+        fetches.forEach((classId, fetch) -> {
+            try {
+                classes.put(classId, join(fetch));
+            } catch (BusinessException e) {
+                errors.put(classId, e.getMessage());
+            }
+        });
+        return classes;
+    }
+
+    /**
+     * Busca os dados da turma, usando o cache local de turmas quando ainda válido.
+     * Se o Class Service estiver indisponível, a última versão conhecida da turma é usada.
+     */
+    public ClassInfoDTO fetchClassInfo(Long classId) {
+        ClassInfoDTO cached = classRosterCache.getFresh(classId);
+        if (cached != null) {
+            metricsRecorder.recordClassRosterLookup("hit");
+            return cached;
+        }
+        metricsRecorder.recordClassRosterLookup("miss");
+
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            ApiResponse<ClassInfoDTO> response = classServiceClient.getClassById(classId);
+            if (response == null || !response.isSuccess() || response.getData() == null) {
+                classRosterCache.evict(classId);
+                throw new BusinessException("Turma não encontrada com ID: " + classId);
+            }
+            outcome = "success";
+            classRosterCache.put(classId, response.getData());
+            return response.getData();
+        } catch (BusinessException e) {
+            throw e;
+        } catch (FeignException.NotFound e) {
+            log.warn("Turma não encontrada - ID: {}", classId);
+            classRosterCache.evict(classId);
+            throw new BusinessException("Turma não encontrada com ID: " + classId);
+        } catch (FeignException e) {
+            log.error("Erro ao validar turma - ID: {}, Erro: {}", classId, e.getMessage());
+            return staleClassInfoOrThrow(classId, new BusinessException("Erro ao validar turma. Tente novamente mais tarde."));
+        } catch (Exception e) {
+            log.error("Erro inesperado ao validar turma - ID: {}", classId, e);
+            return staleClassInfoOrThrow(classId, new BusinessException("Erro ao validar turma: " + e.getMessage()));
+        } finally {
+            metricsRecorder.recordRemoteValidation(DEPENDENCY_CLASS, outcome, System.nanoTime() - start);
+        }
+    }
+
+    private ClassInfoDTO staleClassInfoOrThrow(Long classId, BusinessException error) {
+        ClassRosterCache.Entry stale = classRosterCache.getStale(classId);
+        if (stale == null) {
+            throw error;
+        }
+        log.warn("Class Service indisponível, usando dados em cache da turma {} (idade: {}s)",
+                 classId, stale.age().toSeconds());
+        metricsRecorder.recordClassRosterLookup("stale");
+        metricsRecorder.recordClassRosterStaleness(stale.age());
+        return stale.classInfo();
+    }
+
+    /**
+     * Valida se o aluno pertence à turma (lista vazia de alunos é aceita)
+     */
+    public void validateStudentBelongsToClass(Long studentId, ClassInfoDTO classInfo) {
+        List<Long> studentIds = classInfo.getStudentIds();
+        if (studentId == null) {
+            throw new BusinessException("ID do aluno é obrigatório");
+        }
+        if (studentIds != null && !studentIds.isEmpty() && !studentIds.contains(studentId)) {
+            throw new BusinessException(String.format("Aluno %d não pertence à turma %d", studentId, classInfo.getId()));
+        }
+    }
+
+    /**
+     * Valida se o estudante existe, consultando primeiro o índice local de alunos.
+     * O microserviço de estudantes só é chamado se o índice não confirmar o aluno.
+     */
+    public void validateStudentExists(Long studentId) {
+        if (studentId != null && studentExistenceIndex.contains(studentId)) {
+            return;
+        }
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            ApiResponse<?> response = studentServiceClient.getStudentById(studentId);
+            if (response == null || !response.isSuccess()) {
+                throw new BusinessException("Estudante não encontrado com ID: " + studentId);
+            }
+            outcome = "success";
+            studentExistenceIndex.add(studentId);
+            log.debug("Estudante validado com sucesso - ID: {}", studentId);
+        } catch (BusinessException e) {
+            throw e;
+        } catch (FeignException.NotFound e) {
+            log.warn("Estudante não encontrado - ID: {}", studentId);
+            throw new BusinessException("Estudante não encontrado com ID: " + studentId);
+        } catch (FeignException e) {
+            log.error("Erro ao validar estudante - ID: {}, Erro: {}", studentId, e.getMessage());
+            throw new BusinessException("Erro ao validar estudante. Tente novamente mais tarde.");
+        } catch (Exception e) {
+            log.error("Erro inesperado ao validar estudante - ID: {}", studentId, e);
+            throw new BusinessException("Erro ao validar estudante: " + e.getMessage());
+        } finally {
+            metricsRecorder.recordRemoteValidation(DEPENDENCY_STUDENT, outcome, System.nanoTime() - start);
+        }
+    }
+
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new BusinessException("Erro ao validar dados da nota: " + cause.getMessage(), cause);
+        }
+    }
+}
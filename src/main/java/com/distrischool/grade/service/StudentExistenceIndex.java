@@ -0,0 +1,237 @@
+package com.distrischool.grade.service;
+
+import com.distrischool.grade.dto.ApiResponse;
+import com.distrischool.grade.feign.StudentServiceClient;
+import com.distrischool.grade.metrics.GradeMetricsRecorder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Índice de alunos existentes mantido em um set do Redis, compartilhado entre as réplicas.
+ * É alimentado pelos eventos student.created/updated/deleted e por uma sincronização
+ * completa com o Student Service (na inicialização e periodicamente).
+ * Um aluno presente no índice dispensa a chamada remota; ausência ou índice frio
+ * significam apenas "não sei" e a validação recorre ao Feign.
+ * Remoções recebidas durante uma sincronização ficam em um set de exclusões, reaplicado
+ * sobre o set novo na troca, para que a listagem anterior ao evento não traga o aluno de volta.
+ */
+@Component
+@Slf4j
+public class StudentExistenceIndex {
+
+    private static final String INDEX_KEY = "grades:students:index";
+    private static final String SYNC_KEY = "grades:students:index:sync";
+    private static final String READY_KEY = "grades:students:index:ready";
+    private static final String LOCK_KEY = "grades:students:index:lock";
+    private static final String REMOVED_KEY = "grades:students:index:removed";
+    private static final Duration REMOVED_TTL = Duration.ofDays(1);
+
+    /**
+     * Inclui o aluno no índice (e no set em sincronização, se houver) e descarta uma exclusão anterior
+     */
+    private static final RedisScript<Long> ADD_SCRIPT = RedisScript.of("""
+            redis.call('SADD', KEYS[1], ARGV[1])
+            redis.call('SREM', KEYS[3], ARGV[1])
+            if redis.call('EXISTS', KEYS[2]) == 1 then
+              redis.call('SADD', KEYS[2], ARGV[1])
+            end
+            return 1
+            """, Long.class);
+
+    /**
+     * Remove o aluno do índice e do set em sincronização e registra a exclusão para a troca
+     */
+    private static final RedisScript<Long> REMOVE_SCRIPT = RedisScript.of("""
+            redis.call('SREM', KEYS[1], ARGV[1])
+            redis.call('SREM', KEYS[2], ARGV[1])
+            redis.call('SADD', KEYS[3], ARGV[1])
+            redis.call('PEXPIRE', KEYS[3], ARGV[2])
+            return 1
+            """, Long.class);
+
+    /**
+     * Troca o índice pelo set sincronizado, reaplica as exclusões recebidas durante a sincronização
+     * e marca o índice como pronto. Não faz nada se o lock não pertencer mais a esta instância.
+     */
+    private static final RedisScript<Long> SWAP_SCRIPT = RedisScript.of("""
+            if redis.call('GET', KEYS[5]) ~= ARGV[1] then
+              return 0
+            end
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+              redis.call('RENAME', KEYS[1], KEYS[2])
+              local removed = redis.call('SMEMBERS', KEYS[3])
+              for i = 1, #removed, 1000 do
+                redis.call('SREM', KEYS[2], unpack(removed, i, math.min(i + 999, #removed)))
+              end
+            else
+              redis.call('DEL', KEYS[2])
+            end
+            redis.call('DEL', KEYS[3])
+            redis.call('SET', KEYS[4], ARGV[2], 'PX', ARGV[3])
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+              return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final StudentServiceClient studentServiceClient;
+    private final GradeMetricsRecorder metricsRecorder;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final int pageSize;
+    private final Duration resyncInterval;
+    private final Duration readyTtl;
+
+    public StudentExistenceIndex(StringRedisTemplate redisTemplate,
+                                 StudentServiceClient studentServiceClient,
+                                 GradeMetricsRecorder metricsRecorder,
+                                 @Value("${microservice.student.index.page-size:500}") int pageSize,
+                                 @Value("${microservice.student.index.resync-interval-ms:21600000}") long resyncIntervalMs,
+                                 @Value("${microservice.student.index.ready-ttl:24h}") Duration readyTtl) {
+        this.redisTemplate = redisTemplate;
+        this.studentServiceClient = studentServiceClient;
+        this.metricsRecorder = metricsRecorder;
+        this.pageSize = pageSize;
+        this.resyncInterval = Duration.ofMillis(resyncIntervalMs);
+        this.readyTtl = readyTtl;
+    }
+
+    /**
+     * Retorna true somente se o índice estiver sincronizado e contiver o aluno
+     */
+    public boolean contains(Long studentId) {
+        try {
+            // Um único round trip: marcador de sincronização + pertinência no set
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.keyCommands().exists(bytes(READY_KEY));
+                connection.setCommands().sIsMember(bytes(INDEX_KEY), bytes(String.valueOf(studentId)));
+                return null;
+            });
+            if (!Boolean.TRUE.equals(results.get(0))) {
+                metricsRecorder.recordStudentIndexLookup("cold");
+                return false;
+            }
+            boolean present = Boolean.TRUE.equals(results.get(1));
+            metricsRecorder.recordStudentIndexLookup(present ? "hit" : "miss");
+            return present;
+        } catch (Exception e) {
+            log.warn("Erro ao consultar índice de alunos - ID: {}, Erro: {}", studentId, e.getMessage());
+            metricsRecorder.recordStudentIndexLookup("error");
+            return false;
+        }
+    }
+
+    public void add(Long studentId) {
+        try {
+            redisTemplate.execute(ADD_SCRIPT, List.of(INDEX_KEY, SYNC_KEY, REMOVED_KEY), String.valueOf(studentId));
+        } catch (Exception e) {
+            log.warn("Erro ao adicionar aluno ao índice - ID: {}, Erro: {}", studentId, e.getMessage());
+        }
+    }
+
+    public void remove(Long studentId) {
+        try {
+            redisTemplate.execute(REMOVE_SCRIPT, List.of(INDEX_KEY, SYNC_KEY, REMOVED_KEY),
+                    String.valueOf(studentId), String.valueOf(REMOVED_TTL.toMillis()));
+        } catch (Exception e) {
+            log.warn("Erro ao remover aluno do índice - ID: {}, Erro: {}", studentId, e.getMessage());
+        }
+    }
+
+    /**
+     * Recarrega o índice a partir da listagem completa do Student Service.
+     * Apenas uma réplica sincroniza por intervalo; o set novo substitui o anterior atomicamente,
+     * sem os alunos removidos por eventos durante a sincronização.
+     * Se as sincronizações pararem, o marcador expira e as validações voltam ao Feign.
+     */
+    @Scheduled(initialDelayString = "${microservice.student.index.initial-delay-ms:10000}",
+               fixedDelayString = "${microservice.student.index.resync-interval-ms:21600000}")
+    public void resync() {
+        if (syncedRecently()) {
+            log.debug("Índice de alunos sincronizado recentemente, sincronização ignorada");
+            return;
+        }
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, instanceId, Duration.ofMinutes(10));
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            redisTemplate.delete(List.of(SYNC_KEY, REMOVED_KEY));
+            long total = 0;
+            int page = 0;
+            boolean last;
+            do {
+                ApiResponse<Map<String, Object>> response = studentServiceClient.listStudents(page, pageSize);
+                if (response == null || !response.isSuccess() || response.getData() == null) {
+                    throw new IllegalStateException("Resposta inválida do Student Service na página " + page);
+                }
+                String[] ids = extractIds(response.getData());
+                if (ids.length > 0) {
+                    redisTemplate.opsForSet().add(SYNC_KEY, ids);
+                    total += ids.length;
+                }
+                last = ids.length == 0 || !Boolean.FALSE.equals(response.getData().get("last"));
+                page++;
+            } while (!last);
+
+            Long swapped = redisTemplate.execute(SWAP_SCRIPT,
+                    List.of(SYNC_KEY, INDEX_KEY, REMOVED_KEY, READY_KEY, LOCK_KEY),
+                    instanceId, String.valueOf(System.currentTimeMillis()), String.valueOf(readyTtl.toMillis()));
+            if (!Long.valueOf(1).equals(swapped)) {
+                log.warn("Lock do índice de alunos expirou durante a sincronização, resultado descartado");
+                return;
+            }
+            log.info("Índice de alunos sincronizado - Alunos: {}, Duração: {}ms",
+                     total, Duration.ofNanos(System.nanoTime() - start).toMillis());
+        } catch (Exception e) {
+            log.error("Erro ao sincronizar índice de alunos: {}", e.getMessage());
+        } finally {
+            redisTemplate.execute(UNLOCK_SCRIPT, List.of(LOCK_KEY), instanceId);
+        }
+    }
+
+    private boolean syncedRecently() {
+        try {
+            String syncedAt = redisTemplate.opsForValue().get(READY_KEY);
+            return syncedAt != null
+                    && System.currentTimeMillis() - Long.parseLong(syncedAt) < resyncInterval.toMillis();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String[] extractIds(Map<String, Object> page) {
+        Object content = page.get("content");
+        if (!(content instanceof List<?> students)) {
+            return new String[0];
+        }
+        return students.stream()
+                .filter(Map.class::isInstance)
+                .map(student -> ((Map<String, Object>) student).get("id"))
+                .filter(Objects::nonNull)
+                .map(String::valueOf)
+                .toArray(String[]::new);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
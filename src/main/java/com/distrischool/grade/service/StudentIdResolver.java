@@ -0,0 +1,124 @@
+package com.distrischool.grade.service;
+
+import com.distrischool.grade.dto.ApiResponse;
+import com.distrischool.grade.exception.BusinessException;
+import com.distrischool.grade.feign.AuthServiceClient;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolve o studentId associado a um userId no auth service, com cache local.
+ * Usuários sem studentId também ficam em cache (por um prazo menor), e requisições
+ * simultâneas para o mesmo usuário aguardam uma única chamada ao auth service.
+ * Falhas do auth service não são armazenadas.
+ */
+@Component
+@Slf4j
+public class StudentIdResolver {
+
+    private final AuthServiceClient authServiceClient;
+    private final Cache<Long, Optional<Long>> studentIds;
+
+    public StudentIdResolver(AuthServiceClient authServiceClient,
+                             MeterRegistry meterRegistry,
+                             @Value("${microservice.auth.student-id-cache.ttl:24h}") Duration ttl,
+                             @Value("${microservice.auth.student-id-cache.negative-ttl:10m}") Duration negativeTtl,
+                             @Value("${microservice.auth.student-id-cache.max-size:100000}") long maxSize) {
+        this.authServiceClient = authServiceClient;
+        this.studentIds = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<Long, Optional<Long>>() {
+                    @Override
+                    public long expireAfterCreate(Long userId, Optional<Long> studentId, long currentTime) {
+                        return studentId.isPresent() ? ttl.toNanos() : negativeTtl.toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long userId, Optional<Long> studentId,
+                                                  long currentTime, long currentDuration) {
+                        return expireAfterCreate(userId, studentId, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long userId, Optional<Long> studentId,
+                                                long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, studentIds, "grade-user-student-ids");
+    }
+
+    /**
+     * Retorna o studentId do usuário ou null se o usuário não possuir um
+     */
+    public Long resolve(Long userId) {
+        return studentIds.get(userId, this::fetchStudentId).orElse(null);
+    }
+
+    /**
+     * Busca o studentId associado a um userId através do auth service
+     */
+    private Optional<Long> fetchStudentId(Long userId) {
+        try {
+            // Tenta primeiro o endpoint específico para student-id
+            ApiResponse<Map<String, Object>> response = null;
+            try {
+                response = authServiceClient.getStudentIdByUserId(userId);
+            } catch (FeignException.NotFound e) {
+                log.debug("Endpoint /student-id não encontrado, tentando endpoint genérico");
+                // Se não encontrar, tenta o endpoint genérico
+                response = authServiceClient.getUserById(userId);
+            }
+
+            if (response == null || !response.isSuccess() || response.getData() == null) {
+                log.warn("Não foi possível encontrar studentId para userId: {}", userId);
+                return Optional.empty();
+            }
+
+            Map<String, Object> data = response.getData();
+            Object studentIdObj = data.get("studentId");
+
+            if (studentIdObj == null) {
+                log.warn("Resposta do auth service não contém studentId para userId: {}", userId);
+                return Optional.empty();
+            }
+
+            // Converte o studentId para Long
+            if (studentIdObj instanceof Number) {
+                return Optional.of(((Number) studentIdObj).longValue());
+            } else if (studentIdObj instanceof String) {
+                try {
+                    return Optional.of(Long.parseLong((String) studentIdObj));
+                } catch (NumberFormatException e) {
+                    log.error("Erro ao converter studentId para Long: {}", studentIdObj, e);
+                    return Optional.empty();
+                }
+            }
+
+            log.warn("Tipo de studentId não suportado: {}", studentIdObj.getClass());
+            return Optional.empty();
+        } catch (FeignException.NotFound e) {
+            log.warn("Usuário não encontrado - userId: {}", userId);
+            return Optional.empty();
+        } catch (FeignException e) {
+            log.error("Erro ao buscar studentId - userId: {}, Erro: {}", userId, e.getMessage());
+            throw new BusinessException("Erro ao buscar studentId. Tente novamente mais tarde.");
+        } catch (Exception e) {
+            log.error("Erro inesperado ao buscar studentId - userId: {}", userId, e);
+            throw new BusinessException("Erro ao buscar studentId: " + e.getMessage());
+        }
+    }
+}
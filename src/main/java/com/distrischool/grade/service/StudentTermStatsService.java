@@ -0,0 +1,125 @@
+package com.distrischool.grade.service;
+
+import com.distrischool.grade.entity.Grade.GradeStatus;
+import com.distrischool.grade.entity.StudentTermStats;
+import com.distrischool.grade.repository.StudentTermStatsRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Mantém a tabela student_term_stats (soma, quantidade, mínima e máxima das notas
+ * confirmadas por aluno e período) na mesma transação das escritas de notas.
+ * Uma nota conta para os agregados enquanto estiver CONFIRMED e não removida.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StudentTermStatsService {
+
+    private final StudentTermStatsRepository statsRepository;
+    private final EntityManager entityManager;
+
+    /**
+     * Retorna a contribuição da nota para os agregados no estado informado, ou null se ela não conta
+     */
+    public Contribution contributionOf(GradeAggregates.GradeState grade) {
+        if (grade.deleted() || grade.status() != GradeStatus.CONFIRMED || grade.gradeValue() == null) {
+            return null;
+        }
+        return new Contribution(grade.studentId(), grade.academicYear(),
+                                grade.academicSemester(), grade.gradeValue());
+    }
+
+    /**
+     * Aplica um conjunto de alterações agrupando-as por aluno e período,
+     * com no máximo uma remoção e uma adição por linha da tabela.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordChanges(Collection<Contribution> removed, Collection<Contribution> added) {
+        Map<TermKey, Delta> removedByTerm = fold(removed);
+        Map<TermKey, Delta> addedByTerm = fold(added);
+
+        if (!removedByTerm.isEmpty()) {
+            // A remoção pode recalcular mínima/máxima a partir das notas já gravadas
+            entityManager.flush();
+        }
+        removedByTerm.forEach((term, delta) -> statsRepository.removeGrades(
+                term.studentId(), term.academicYear(), term.academicSemester(),
+                delta.sum, delta.count, delta.min, delta.max));
+        addedByTerm.forEach((term, delta) -> statsRepository.addGrades(
+                term.studentId(), term.academicYear(), term.academicSemester(),
+                delta.sum, delta.count, delta.min, delta.max));
+    }
+
+    /**
+     * Média das notas confirmadas do aluno no período (zero se não houver notas)
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal average(Long studentId, Integer academicYear, Integer academicSemester) {
+        return statsRepository.findById(new StudentTermStats.Key(
+                        studentId, academicYear, academicSemester))
+                .filter(stats -> stats.getGradeCount() > 0)
+                .map(stats -> stats.getGradeSum().divide(BigDecimal.valueOf(stats.getGradeCount()),
+                                                          MathContext.DECIMAL64))
+                .orElse(BigDecimal.ZERO);
+    }
+
+    /**
+     * Recalcula a tabela inteira a partir das notas, corrigindo qualquer divergência.
+     * Escritas concorrentes de notas aguardam o fim do rebuild para aplicar seus agregados.
+     */
+    @Transactional
+    public int rebuild() {
+        long start = System.nanoTime();
+        statsRepository.lockForRebuild();
+        int removedRows = statsRepository.deleteAllRows();
+        int insertedRows = statsRepository.insertFromGrades();
+        log.info("Estatísticas de alunos recalculadas - Linhas anteriores: {}, Linhas atuais: {}, Duração: {}ms",
+                 removedRows, insertedRows, (System.nanoTime() - start) / 1_000_000);
+        return insertedRows;
+    }
+
+    private static Map<TermKey, Delta> fold(Collection<Contribution> contributions) {
+        Map<TermKey, Delta> byTerm = new LinkedHashMap<>();
+        for (Contribution contribution : contributions) {
+            TermKey term = new TermKey(contribution.studentId(), contribution.academicYear(),
+                                       contribution.academicSemester());
+            byTerm.computeIfAbsent(term, key -> new Delta()).add(contribution.gradeValue());
+        }
+        return byTerm;
+    }
+
+    /**
+     * Nota confirmada de um aluno em um período
+     */
+    public record Contribution(Long studentId, Integer academicYear, Integer academicSemester,
+                               BigDecimal gradeValue) {
+    }
+
+    private record TermKey(Long studentId, Integer academicYear, Integer academicSemester) {
+    }
+
+    private static final class Delta {
+        private BigDecimal sum = BigDecimal.ZERO;
+        private int count;
+        private BigDecimal min;
+        private BigDecimal max;
+
+        void add(BigDecimal value) {
+            sum = sum.add(value);
+            count++;
+            min = min == null || value.compareTo(min) < 0 ? value : min;
+            max = max == null || value.compareTo(max) > 0 ? value : max;
+        }
+    }
+}
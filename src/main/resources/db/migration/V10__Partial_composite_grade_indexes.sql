@@ -0,0 +1,55 @@
+-- Migration para trocar os índices de coluna única de grades por índices parciais e compostos
+-- Versão 10 - Índices no formato das consultas
+-- Todas as consultas filtram deleted_at IS NULL, então os índices cobrem apenas as notas vivas.
+-- As médias, rankings e resumos por turma usam a janela "notas mais recentes por aluno"
+-- (grade_date DESC NULLS LAST, id DESC), que os índices de turma e de período entregam já ordenada.
+
+-- Uma nota viva por aluno e avaliação. Notas duplicadas precisam ser resolvidas antes
+-- (a remoção lógica pela API mantém estatísticas, distribuição e médias no Redis consistentes).
+DO $$
+DECLARE
+    duplicated_pairs BIGINT;
+BEGIN
+    SELECT COUNT(*) INTO duplicated_pairs FROM (
+        SELECT 1 FROM grades
+        WHERE deleted_at IS NULL
+        GROUP BY student_id, evaluation_id
+        HAVING COUNT(*) > 1
+    ) d;
+    IF duplicated_pairs > 0 THEN
+        RAISE EXCEPTION 'Existem % pares (student_id, evaluation_id) com mais de uma nota ativa; remova as duplicadas antes de aplicar a V10', duplicated_pairs;
+    END IF;
+END $$;
+
+CREATE UNIQUE INDEX uk_grade_student_evaluation ON grades(student_id, evaluation_id)
+    WHERE deleted_at IS NULL;
+
+-- Notas do aluno no período (listagens, contagens e mínima/máxima de student_term_stats)
+CREATE INDEX idx_grade_student_term ON grades(student_id, academic_year, academic_semester)
+    WHERE deleted_at IS NULL;
+
+-- Notas da avaliação (listagens, lançamento por turma e fechamento do período)
+CREATE INDEX idx_grade_evaluation ON grades(evaluation_id)
+    WHERE deleted_at IS NULL;
+
+-- Notas mais recentes por aluno dentro da turma e período (médias, ranking, resumos e reconciliação)
+CREATE INDEX idx_grade_class_term_latest
+    ON grades(class_id, academic_year, academic_semester, student_id, grade_date DESC NULLS LAST, id DESC)
+    WHERE deleted_at IS NULL AND class_id IS NOT NULL;
+
+-- Notas mais recentes por aluno no período, considerando todas as turmas (médias e ranking gerais)
+CREATE INDEX idx_grade_term_student_latest
+    ON grades(academic_year, academic_semester, student_id, grade_date DESC NULLS LAST, id DESC)
+    WHERE deleted_at IS NULL AND class_id IS NOT NULL;
+
+-- Índices substituídos pelos acima ou sem consulta que os use (status e deleted_at têm baixa seletividade)
+DROP INDEX IF EXISTS idx_grade_student_id;
+DROP INDEX IF EXISTS idx_grade_evaluation_id;
+DROP INDEX IF EXISTS idx_grade_class_id;
+DROP INDEX IF EXISTS idx_grade_academic_year_semester;
+DROP INDEX IF EXISTS idx_grade_date;
+DROP INDEX IF EXISTS idx_grade_status;
+DROP INDEX IF EXISTS idx_grade_deleted_at;
+
+-- Atualiza as estatísticas para o planejador considerar os novos índices
+ANALYZE grades;
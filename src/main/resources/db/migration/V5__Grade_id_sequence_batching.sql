@@ -0,0 +1,8 @@
+-- Migration para permitir inserções em lote (JDBC batching) de notas
+-- O Hibernate passa a gerar os IDs pela sequence com alocação de 50 em 50
+-- (otimizador pooled), por isso o incremento da sequence precisa acompanhar
+-- o allocationSize definido na entidade Grade.
+-- Inserções manuais devem continuar sendo feitas pela aplicação para evitar
+-- colisão com blocos de IDs já reservados.
+
+ALTER SEQUENCE grades_id_seq INCREMENT BY 50;
@@ -0,0 +1,28 @@
+-- Migration para criar a tabela de outbox dos eventos publicados no Kafka
+-- Versão 6 - Transactional outbox
+-- Os eventos são gravados na mesma transação da alteração da nota e
+-- publicados de forma assíncrona pelo OutboxRelay, que remove as linhas já
+-- confirmadas pelo broker.
+
+CREATE TABLE outbox (
+    id BIGSERIAL PRIMARY KEY,
+
+    -- Agregado de origem (a chave Kafka é o aggregate_id)
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id VARCHAR(100) NOT NULL,
+
+    -- Destino e conteúdo do evento
+    topic VARCHAR(255) NOT NULL,
+    event_type VARCHAR(100) NOT NULL,
+    payload TEXT NOT NULL,
+
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- A sequence mantém incremento 1 (allocationSize = 1 na entidade): cada evento obtém seu ID
+-- com o lock da linha do agregado, então a ordem de ID segue a ordem de commit por agregado
+
+-- Comentários
+COMMENT ON TABLE outbox IS 'Eventos pendentes de publicação no Kafka (transactional outbox)';
+COMMENT ON COLUMN outbox.aggregate_id IS 'ID do agregado, usado como chave da mensagem para manter a ordem por agregado';
+COMMENT ON COLUMN outbox.payload IS 'Evento DistriSchoolEvent serializado em JSON';
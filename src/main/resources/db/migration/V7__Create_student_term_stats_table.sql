@@ -0,0 +1,34 @@
+-- Migration para criar a tabela de estatísticas de notas por aluno e período letivo
+-- Versão 7 - Médias mantidas incrementalmente
+-- Guarda soma, quantidade, mínima e máxima das notas CONFIRMED (não removidas) de
+-- cada aluno em cada período. É atualizada na mesma transação das escritas de notas
+-- e pode ser recalculada do zero pelo endpoint de rebuild.
+
+CREATE TABLE student_term_stats (
+    student_id BIGINT NOT NULL,
+    academic_year INTEGER NOT NULL,
+    academic_semester INTEGER NOT NULL,
+
+    -- Agregados das notas confirmadas
+    grade_sum DECIMAL(12,2) NOT NULL DEFAULT 0,
+    grade_count INTEGER NOT NULL DEFAULT 0 CHECK (grade_count >= 0),
+    min_grade DECIMAL(4,2),
+    max_grade DECIMAL(4,2),
+
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (student_id, academic_year, academic_semester)
+);
+
+-- Carga inicial a partir das notas existentes
+INSERT INTO student_term_stats (student_id, academic_year, academic_semester,
+                                grade_sum, grade_count, min_grade, max_grade)
+SELECT student_id, academic_year, academic_semester,
+       SUM(grade_value), COUNT(*), MIN(grade_value), MAX(grade_value)
+FROM grades
+WHERE deleted_at IS NULL AND status = 'CONFIRMED'
+GROUP BY student_id, academic_year, academic_semester;
+
+-- Comentários
+COMMENT ON TABLE student_term_stats IS 'Agregados das notas confirmadas por aluno e período letivo';
+COMMENT ON COLUMN student_term_stats.grade_count IS 'Quantidade de notas confirmadas; zero quando todas foram removidas';
@@ -0,0 +1,31 @@
+-- Migration para criar a tabela de checkpoints da finalização de avaliações consolidadas
+-- Versão 8 - Finalização de período em paralelo
+-- Cada disciplina do período é finalizada em blocos ordenados por ID; o último ID
+-- processado é gravado na mesma transação do bloco, permitindo retomar o job
+-- do ponto em que parou após uma falha.
+
+CREATE TABLE assessment_finalization_checkpoints (
+    academic_year INTEGER NOT NULL,
+    academic_semester INTEGER NOT NULL,
+    subject_id BIGINT NOT NULL,
+
+    -- Progresso
+    last_assessment_id BIGINT NOT NULL DEFAULT 0,
+    finalized_count INTEGER NOT NULL DEFAULT 0,
+
+    -- Datas
+    started_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP,
+
+    PRIMARY KEY (academic_year, academic_semester, subject_id)
+);
+
+-- Jobs a retomar na inicialização
+CREATE INDEX idx_finalization_checkpoint_pending ON assessment_finalization_checkpoints(academic_year, academic_semester)
+    WHERE completed_at IS NULL;
+
+-- Comentários
+COMMENT ON TABLE assessment_finalization_checkpoints IS 'Progresso da finalização das avaliações consolidadas por período e disciplina';
+COMMENT ON COLUMN assessment_finalization_checkpoints.last_assessment_id IS 'Último ID de assessment processado (os blocos seguem a ordem do ID)';
+COMMENT ON COLUMN assessment_finalization_checkpoints.completed_at IS 'Preenchido quando todas as avaliações da disciplina foram finalizadas';
@@ -0,0 +1,40 @@
+-- Migration para criar a tabela de distribuição de notas por avaliação e por turma
+-- Versão 9 - Histogramas de notas mantidos incrementalmente
+-- As notas vão de 0.00 a 10.00 em centésimos, então a distribuição exata cabe em no
+-- máximo 1001 contadores por avaliação/turma e período. Os contadores são atualizados
+-- na mesma transação das escritas de notas e somados na consulta (rollups por período).
+
+CREATE TABLE grade_distribution (
+    -- EVALUATION ou CLASS
+    scope VARCHAR(20) NOT NULL,
+    scope_id BIGINT NOT NULL,
+
+    academic_year INTEGER NOT NULL,
+    academic_semester INTEGER NOT NULL,
+
+    -- Valor da nota em centésimos (0 a 1000) e quantidade de notas com esse valor
+    grade_hundredths SMALLINT NOT NULL CHECK (grade_hundredths >= 0 AND grade_hundredths <= 1000),
+    grade_count INTEGER NOT NULL DEFAULT 0,
+
+    PRIMARY KEY (scope, scope_id, academic_year, academic_semester, grade_hundredths)
+);
+
+-- Rollups por período (todas as avaliações ou turmas)
+CREATE INDEX idx_grade_distribution_term ON grade_distribution(scope, academic_year, academic_semester);
+
+-- Carga inicial a partir das notas existentes (não removidas)
+INSERT INTO grade_distribution (scope, scope_id, academic_year, academic_semester, grade_hundredths, grade_count)
+SELECT 'EVALUATION', evaluation_id, academic_year, academic_semester, ROUND(grade_value * 100), COUNT(*)
+FROM grades
+WHERE deleted_at IS NULL
+GROUP BY evaluation_id, academic_year, academic_semester, ROUND(grade_value * 100);
+
+INSERT INTO grade_distribution (scope, scope_id, academic_year, academic_semester, grade_hundredths, grade_count)
+SELECT 'CLASS', class_id, academic_year, academic_semester, ROUND(grade_value * 100), COUNT(*)
+FROM grades
+WHERE deleted_at IS NULL AND class_id IS NOT NULL
+GROUP BY class_id, academic_year, academic_semester, ROUND(grade_value * 100);
+
+-- Comentários
+COMMENT ON TABLE grade_distribution IS 'Quantidade de notas por valor (centésimos), por avaliação ou turma e período';
+COMMENT ON COLUMN grade_distribution.scope IS 'Escopo do histograma: EVALUATION ou CLASS';
@@ -0,0 +1,131 @@
+package com.distrischool.grade.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * DataSource de teste que, enquanto a captura estiver ativa, executa cada instrução preparada
+ * também como EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON), com os mesmos parâmetros vinculados pelo Hibernate.
+ * Assim o plano avaliado é o das consultas geradas de fato (JPQL traduzido, paginação e contagens).
+ */
+class ExplainingDataSource extends DelegatingDataSource {
+
+    private static final String EXPLAIN_PREFIX = "EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) ";
+    private static final Set<String> EXECUTE_METHODS =
+            Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<CapturedPlan> plans = new CopyOnWriteArrayList<>();
+    private volatile boolean capturing;
+
+    ExplainingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    /**
+     * Plano de uma instrução executada durante a captura (elemento raiz do EXPLAIN em JSON)
+     */
+    record CapturedPlan(String sql, JsonNode plan) {
+    }
+
+    private record Binding(Method setter, Object[] args) {
+    }
+
+    void startCapture() {
+        plans.clear();
+        capturing = true;
+    }
+
+    List<CapturedPlan> stopCapture() {
+        capturing = false;
+        return List.copyOf(plans);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (isIdentityMethod(method)) {
+                        return identity(proxy, method, args);
+                    }
+                    Object result = invoke(connection, method, args);
+                    if ("prepareStatement".equals(method.getName())) {
+                        return wrap(connection, (PreparedStatement) result, (String) args[0]);
+                    }
+                    return result;
+                });
+    }
+
+    private PreparedStatement wrap(Connection connection, PreparedStatement statement, String sql) {
+        Map<Integer, Binding> bindings = new TreeMap<>();
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (isIdentityMethod(method)) {
+                        return identity(proxy, method, args);
+                    }
+                    String name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                        bindings.put(index, new Binding(method, args));
+                    } else if ("clearParameters".equals(name)) {
+                        bindings.clear();
+                    } else if (capturing && args == null && EXECUTE_METHODS.contains(name)) {
+                        plans.add(explain(connection, sql, bindings.values()));
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private CapturedPlan explain(Connection connection, String sql, Collection<Binding> bindings) throws Throwable {
+        try (PreparedStatement explain = connection.prepareStatement(EXPLAIN_PREFIX + sql)) {
+            for (Binding binding : bindings) {
+                invoke(explain, binding.setter(), binding.args());
+            }
+            try (ResultSet resultSet = explain.executeQuery()) {
+                resultSet.next();
+                return new CapturedPlan(sql, objectMapper.readTree(resultSet.getString(1)).get(0));
+            }
+        }
+    }
+
+    private static boolean isIdentityMethod(Method method) {
+        return method.getDeclaringClass() == Object.class
+                && ("equals".equals(method.getName()) || "hashCode".equals(method.getName()));
+    }
+
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return "equals".equals(method.getName()) ? proxy == args[0] : System.identityHashCode(proxy);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
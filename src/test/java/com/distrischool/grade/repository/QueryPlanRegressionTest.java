@@ -0,0 +1,323 @@
+package com.distrischool.grade.repository;
+
+import com.distrischool.grade.entity.Evaluation.EvaluationStatus;
+import com.distrischool.grade.entity.Grade.GradeStatus;
+import com.distrischool.grade.repository.ExplainingDataSource.CapturedPlan;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Regressão de planos de consulta contra um PostgreSQL real (Testcontainers).
+ * Popula um volume de dados próximo ao de produção (db/query_plan_seed.sql), executa
+ * EXPLAIN (ANALYZE, BUFFERS) para cada {@code @Query} dos repositórios de notas, avaliações e
+ * assessments e falha quando uma consulta cai em varredura sequencial ou passa do orçamento de buffers.
+ * Consultas que leem a tabela inteira por definição (listagens sem filtro, contagem geral, reconciliações)
+ * declaram a varredura e recebem como orçamento o tamanho da tabela com seus índices.
+ * Toda nova {@code @Query} precisa de um caso aqui. Sem Docker disponível, o teste é ignorado.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringJUnitConfig(QueryPlanRegressionTest.Config.class)
+@Transactional
+class QueryPlanRegressionTest {
+
+    /**
+     * Blocos de 8 kB (lidos ou em cache) aceitos por consulta indexada; a tabela de notas da massa
+     * ocupa alguns milhares de blocos, então uma varredura completa sempre estoura esse limite
+     */
+    private static final long BUFFER_BUDGET = 4_000;
+
+    // Período 2025/1 da massa: turma 726 (alunos 252 a 276), aluno 260 na disciplina 42 (avaliações 10924 a 10926)
+    private static final int YEAR = 2025;
+    private static final int SEMESTER = 1;
+    private static final long CLASS_ID = 726L;
+    private static final long STUDENT_ID = 260L;
+    private static final long SUBJECT_ID = 42L;
+    private static final long TEACHER_ID = 42L;
+    private static final long EVALUATION_ID = 10924L;
+    private static final int MAX_GRADES = 10;
+    private static final Pageable PAGE = PageRequest.of(0, 20);
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private ExplainingDataSource dataSource;
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private EvaluationRepository evaluationRepository;
+
+    @Autowired
+    private AssessmentRepository assessmentRepository;
+
+    @Test
+    void gradeQueriesUseIndexesWithinBudget() {
+        Map<String, QueryCase> cases = new LinkedHashMap<>();
+        cases.put("findByStudentId", indexed(() -> gradeRepository.findByStudentId(STUDENT_ID, PAGE)));
+        cases.put("findByTeacherId", indexed(() -> gradeRepository.findByTeacherId(TEACHER_ID, PAGE)));
+        cases.put("findByEvaluationId", indexed(() -> gradeRepository.findByEvaluationId(EVALUATION_ID, PAGE)));
+        cases.put("lockEvaluationGrades", indexed(() -> gradeRepository.lockEvaluationGrades(EVALUATION_ID)));
+        cases.put("lockById", indexed(() -> gradeRepository.lockById(1L)));
+        cases.put("findByStudentIdAndAcademicYearAndAcademicSemester", indexed(() ->
+                gradeRepository.findByStudentIdAndAcademicYearAndAcademicSemester(STUDENT_ID, YEAR, SEMESTER)));
+        cases.put("findByEvaluationIdAndStudentId", indexed(() ->
+                gradeRepository.findByEvaluationIdAndStudentId(EVALUATION_ID, STUDENT_ID)));
+        cases.put("findByStudentIdAndEvaluationId", indexed(() ->
+                gradeRepository.findByStudentIdAndEvaluationId(STUDENT_ID, EVALUATION_ID)));
+        cases.put("findExistingStudentEvaluationPairs", indexed(() ->
+                gradeRepository.findExistingStudentEvaluationPairs(List.of(STUDENT_ID, STUDENT_ID + 1),
+                        List.of(EVALUATION_ID, EVALUATION_ID + 1, EVALUATION_ID + 2))));
+        cases.put("findGradesByStudentAndSubject", indexed(() ->
+                gradeRepository.findGradesByStudentAndSubject(STUDENT_ID, SUBJECT_ID, PAGE)));
+        cases.put("findByStatus", fullScan(() -> gradeRepository.findByStatus(GradeStatus.PENDING, PAGE), "grades"));
+        cases.put("findStudentGrades", indexed(() ->
+                gradeRepository.findStudentGrades(STUDENT_ID, YEAR, SEMESTER, SUBJECT_ID, PAGE)));
+        cases.put("countByStudentIdAndAcademicYearAndAcademicSemester", indexed(() ->
+                gradeRepository.countByStudentIdAndAcademicYearAndAcademicSemester(STUDENT_ID, YEAR, SEMESTER)));
+        cases.put("findAllNotDeleted", fullScan(() -> gradeRepository.findAllNotDeleted(PAGE), "grades"));
+        cases.put("sliceAllNotDeleted", fullScan(() -> gradeRepository.sliceAllNotDeleted(PAGE), "grades"));
+        cases.put("sliceByStudentId", indexed(() -> gradeRepository.sliceByStudentId(STUDENT_ID, PAGE)));
+        cases.put("sliceByEvaluationId", indexed(() -> gradeRepository.sliceByEvaluationId(EVALUATION_ID, PAGE)));
+        cases.put("countNotDeleted", fullScan(() -> gradeRepository.countNotDeleted(), "grades"));
+        cases.put("countNotDeletedByStudentId", indexed(() -> gradeRepository.countNotDeletedByStudentId(STUDENT_ID)));
+        cases.put("countNotDeletedByEvaluationId", indexed(() ->
+                gradeRepository.countNotDeletedByEvaluationId(EVALUATION_ID)));
+        cases.put("streamForExport", indexed(() ->
+                drain(gradeRepository.streamForExport(CLASS_ID, YEAR, SEMESTER, null))));
+        cases.put("findAllNotDeletedAfter", indexed(() ->
+                gradeRepository.findAllNotDeletedAfter(10_000_000L, PageRequest.of(0, 50))));
+        cases.put("findByStudentIdAfter", indexed(() ->
+                gradeRepository.findByStudentIdAfter(STUDENT_ID, LocalDate.of(YEAR, 4, 9), Long.MAX_VALUE,
+                        PageRequest.of(0, 50))));
+        cases.put("findByEvaluationIdAfter", indexed(() ->
+                gradeRepository.findByEvaluationIdAfter(EVALUATION_ID, new BigDecimal("5.00"), 0L,
+                        PageRequest.of(0, 50))));
+        cases.put("streamLatestClassGrades", indexed(() ->
+                drain(gradeRepository.streamLatestClassGrades(CLASS_ID, YEAR, SEMESTER, MAX_GRADES))));
+        cases.put("streamLatestGradesForClasses", indexed(() ->
+                drain(gradeRepository.streamLatestGradesForClasses(List.of(CLASS_ID, CLASS_ID + 1, CLASS_ID + 2),
+                        YEAR, SEMESTER, MAX_GRADES))));
+        cases.put("calculateClassAverage", indexed(() ->
+                gradeRepository.calculateClassAverage(CLASS_ID, YEAR, SEMESTER, MAX_GRADES)));
+        cases.put("calculateGlobalClassesAverage", indexed(() ->
+                gradeRepository.calculateGlobalClassesAverage(YEAR, SEMESTER, MAX_GRADES)));
+        cases.put("findClassRanking", indexed(() ->
+                gradeRepository.findClassRanking(CLASS_ID, YEAR, SEMESTER, MAX_GRADES, 10)));
+        cases.put("findGlobalRanking", indexed(() ->
+                gradeRepository.findGlobalRanking(YEAR, SEMESTER, MAX_GRADES, 10)));
+        cases.put("findClassWindows", indexed(() ->
+                gradeRepository.findClassWindows(YEAR, SEMESTER, List.of(CLASS_ID),
+                        List.of(STUDENT_ID, STUDENT_ID + 1), MAX_GRADES)));
+        cases.put("findGlobalWindows", indexed(() ->
+                gradeRepository.findGlobalWindows(YEAR, SEMESTER, List.of(STUDENT_ID, STUDENT_ID + 1), MAX_GRADES)));
+        cases.put("findClassTermWindows", indexed(() ->
+                gradeRepository.findClassTermWindows(CLASS_ID, YEAR, SEMESTER, MAX_GRADES)));
+        cases.put("findGlobalTermWindows", indexed(() ->
+                gradeRepository.findGlobalTermWindows(YEAR, SEMESTER, MAX_GRADES)));
+        cases.put("streamClassWindows", fullScan(() -> drain(gradeRepository.streamClassWindows(MAX_GRADES)), "grades"));
+        cases.put("streamGlobalWindows", fullScan(() -> drain(gradeRepository.streamGlobalWindows(MAX_GRADES)), "grades"));
+
+        verifyPlans(GradeRepository.class, cases);
+    }
+
+    @Test
+    void evaluationQueriesUseIndexesWithinBudget() {
+        Map<String, QueryCase> cases = new LinkedHashMap<>();
+        cases.put("findEvaluations", indexed(() ->
+                evaluationRepository.findEvaluations(YEAR, SEMESTER, SUBJECT_ID, EvaluationStatus.GRADED, PAGE)));
+        cases.put("findEvaluationsWithPassedDeadline", fullScan(() ->
+                evaluationRepository.findEvaluationsWithPassedDeadline(LocalDate.now()), "evaluations"));
+        cases.put("findAllNotDeleted", fullScan(() -> evaluationRepository.findAllNotDeleted(PAGE), "evaluations"));
+
+        verifyPlans(EvaluationRepository.class, cases);
+    }
+
+    @Test
+    void assessmentQueriesUseIndexesWithinBudget() {
+        Map<String, QueryCase> cases = new LinkedHashMap<>();
+        cases.put("findStudentAssessments", indexed(() ->
+                assessmentRepository.findStudentAssessments(STUDENT_ID, YEAR, SEMESTER)));
+        cases.put("findSubjectAssessments", indexed(() ->
+                assessmentRepository.findSubjectAssessments(SUBJECT_ID, YEAR, SEMESTER)));
+        cases.put("findAllNotDeleted", fullScan(() -> assessmentRepository.findAllNotDeleted(PAGE), "assessments"));
+        cases.put("findFinalizationChunk", indexed(() ->
+                assessmentRepository.findFinalizationChunk(SUBJECT_ID, YEAR, SEMESTER, 0L, PageRequest.of(0, 500))));
+        cases.put("upsertFinalGrades", indexed(() ->
+                assessmentRepository.upsertFinalGrades(YEAR, SEMESTER, SUBJECT_ID,
+                        new BigDecimal("6.00"), new BigDecimal("4.00"), "query-plan-test")));
+
+        verifyPlans(AssessmentRepository.class, cases);
+    }
+
+    /**
+     * Confere que todas as {@code @Query} do repositório têm caso e valida o plano de cada instrução executada
+     */
+    private void verifyPlans(Class<?> repository, Map<String, QueryCase> cases) {
+        Set<String> queryMethods = Arrays.stream(repository.getDeclaredMethods())
+                .filter(method -> method.isAnnotationPresent(Query.class))
+                .map(Method::getName)
+                .collect(Collectors.toCollection(TreeSet::new));
+        assertEquals(queryMethods, new TreeSet<>(cases.keySet()),
+                "Toda @Query de " + repository.getSimpleName() + " precisa de um caso no teste de planos");
+
+        List<String> failures = new ArrayList<>();
+        cases.forEach((name, queryCase) ->
+                failures.addAll(checkPlans(repository.getSimpleName() + "." + name, queryCase)));
+        assertTrue(failures.isEmpty(), () -> String.join("\n\n", failures));
+    }
+
+    private List<String> checkPlans(String query, QueryCase queryCase) {
+        List<CapturedPlan> plans;
+        dataSource.startCapture();
+        try {
+            queryCase.call().run();
+        } finally {
+            plans = dataSource.stopCapture();
+        }
+        if (plans.isEmpty()) {
+            return List.of(query + ": nenhuma instrução SQL executada");
+        }
+
+        long budget = BUFFER_BUDGET + queryCase.fullScanTables().stream().mapToLong(this::relationBlocks).sum();
+        List<String> failures = new ArrayList<>();
+        for (CapturedPlan plan : plans) {
+            JsonNode root = plan.plan().path("Plan");
+            List<String> seqScans = new ArrayList<>();
+            collectSeqScans(root, seqScans);
+            seqScans.removeAll(queryCase.fullScanTables());
+            if (!seqScans.isEmpty()) {
+                failures.add(String.format("%s: varredura sequencial em %s%n%s%n%s",
+                        query, seqScans, plan.sql(), root.toPrettyString()));
+            }
+            long buffers = root.path("Shared Hit Blocks").asLong() + root.path("Shared Read Blocks").asLong();
+            if (buffers > budget) {
+                failures.add(String.format("%s: %d buffers (orçamento %d)%n%s%n%s",
+                        query, buffers, budget, plan.sql(), root.toPrettyString()));
+            }
+        }
+        return failures;
+    }
+
+    private static void collectSeqScans(JsonNode node, List<String> relations) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            relations.add(node.path("Relation Name").asText());
+        }
+        node.path("Plans").forEach(child -> collectSeqScans(child, relations));
+    }
+
+    /**
+     * Tamanho da tabela com índices, em blocos
+     */
+    private long relationBlocks(String table) {
+        Long blocks = new JdbcTemplate(dataSource).queryForObject(
+                "SELECT pg_total_relation_size(CAST(? AS regclass)) / current_setting('block_size')::bigint",
+                Long.class, table);
+        return blocks != null ? blocks : 0;
+    }
+
+    private static void drain(Stream<?> stream) {
+        try (stream) {
+            stream.forEach(row -> { });
+        }
+    }
+
+    private static QueryCase indexed(Runnable call) {
+        return new QueryCase(call, Set.of());
+    }
+
+    private static QueryCase fullScan(Runnable call, String... tables) {
+        return new QueryCase(call, Set.of(tables));
+    }
+
+    /**
+     * Chamada ao repositório e tabelas em que a varredura completa é esperada
+     */
+    private record QueryCase(Runnable call, Set<String> fullScanTables) {
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = GradeRepository.class)
+    static class Config {
+
+        @Bean
+        ExplainingDataSource dataSource() {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setJdbcUrl(POSTGRES.getJdbcUrl());
+            pool.setUsername(POSTGRES.getUsername());
+            pool.setPassword(POSTGRES.getPassword());
+            pool.setMaximumPoolSize(4);
+
+            Flyway.configure().dataSource(pool).locations("classpath:db/migration").load().migrate();
+            try (Connection connection = pool.getConnection()) {
+                ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/query_plan_seed.sql"));
+            } catch (SQLException e) {
+                throw new IllegalStateException("Falha ao popular a massa de dados do teste de planos", e);
+            }
+            return new ExplainingDataSource(pool);
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(ExplainingDataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setPackagesToScan("com.distrischool.grade.entity");
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setJpaPropertyMap(Map.of(
+                    "hibernate.hbm2ddl.auto", "none",
+                    "hibernate.jdbc.time_zone", "UTC",
+                    "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
+                    "hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName()));
+            return factory;
+        }
+
+        @Bean
+        JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.distrischool.grade.service;
+
+import com.distrischool.grade.dto.ClassGradeSummaryDTO;
+import com.distrischool.grade.dto.ClassInfoDTO;
+import com.distrischool.grade.kafka.EventOutbox;
+import com.distrischool.grade.repository.GradeRepository;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.Validator;
+import org.flywaydb.core.Flyway;
+import org.hibernate.Session;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import javax.sql.DataSource;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Memória do detalhamento de turma contra um PostgreSQL real (Testcontainers).
+ * Uma turma com milhões de notas no período deve ser resumida sem carregar as notas no heap nem
+ * entidades no contexto de persistência: só as últimas notas de cada aluno saem do banco, em cursor.
+ * O heap vivo é medido após cada coleta durante a chamada e com o resumo ainda referenciado.
+ * Sem Docker disponível, o teste é ignorado.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringJUnitConfig(ClassGradeDetailsMemoryTest.Config.class)
+class ClassGradeDetailsMemoryTest {
+
+    // Turma 900 em 2025/1: 20.000 alunos com 100 notas cada (2.000.000 de notas)
+    private static final long CLASS_ID = 900L;
+    private static final int YEAR = 2025;
+    private static final int SEMESTER = 1;
+    private static final int STUDENTS = 20_000;
+    private static final int GRADES_PER_STUDENT = 100;
+    private static final int MAX_GRADES = 3;
+
+    /**
+     * Heap vivo aceito acima do inicial: o resumo tem 60.000 notas; as 2.000.000 de notas da turma
+     * carregadas como entidades ou projeções passariam de algumas centenas de MB
+     */
+    private static final long HEAP_BUDGET_BYTES = 128L * 1024 * 1024;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void classGradeDetailsKeepHeapAndPersistenceContextBounded() {
+        RemoteValidationService remoteValidationService = mock(RemoteValidationService.class);
+        when(remoteValidationService.fetchClassInfo(CLASS_ID))
+                .thenReturn(ClassInfoDTO.builder().id(CLASS_ID).name("Turma 900").build());
+        GradeService gradeService = new GradeService(gradeRepository, mock(EventOutbox.class), remoteValidationService,
+                mock(StudentIdResolver.class), mock(Validator.class), entityManager, mock(GradeCacheGenerations.class),
+                mock(StudentTermStatsService.class), mock(GradeAggregates.class), mock(ClassAverageIndex.class),
+                mock(GradeListingCounts.class));
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        long baseline = liveHeap();
+        AtomicLong peakAfterGc = new AtomicLong();
+        List<Runnable> unregister = watchHeapAfterGc(peakAfterGc);
+        long[] managedEntities = {-1};
+        ClassGradeSummaryDTO summary;
+        try {
+            summary = readOnlyTransaction.execute(status -> {
+                ClassGradeSummaryDTO result = gradeService.getClassGradeDetails(CLASS_ID, YEAR, SEMESTER, MAX_GRADES);
+                managedEntities[0] = entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+                return result;
+            });
+        } finally {
+            unregister.forEach(Runnable::run);
+        }
+        long retained = liveHeap();
+
+        assertEquals(STUDENTS, summary.getTotalStudents());
+        assertEquals(STUDENTS, summary.getStudentsWithGrades());
+        assertTrue(summary.getStudents().stream().allMatch(student -> student.getGrades().size() == MAX_GRADES),
+                "Cada aluno deve trazer apenas as " + MAX_GRADES + " notas mais recentes");
+        assertEquals(0, managedEntities[0], "Nenhuma entidade deve ficar no contexto de persistência");
+
+        long growth = Math.max(peakAfterGc.get(), retained) - baseline;
+        assertTrue(growth < HEAP_BUDGET_BYTES,
+                String.format("Heap vivo cresceu %d MB (orçamento: %d MB)", growth >> 20, HEAP_BUDGET_BYTES >> 20));
+    }
+
+    private static long liveHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Registra o maior heap (só pools de heap) ocupado após cada coleta; devolve as ações que removem os listeners
+     */
+    private static List<Runnable> watchHeapAfterGc(AtomicLong peak) {
+        List<Runnable> unregister = new ArrayList<>();
+        Set<String> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .map(MemoryPoolMXBean::getName)
+                .collect(Collectors.toSet());
+        NotificationListener listener = (notification, handback) -> {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            long used = 0;
+            for (Map.Entry<String, MemoryUsage> pool : info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+                if (heapPools.contains(pool.getKey())) {
+                    used += pool.getValue().getUsed();
+                }
+            }
+            peak.accumulateAndGet(used, Math::max);
+        };
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(listener, null, null);
+                unregister.add(() -> {
+                    try {
+                        emitter.removeNotificationListener(listener);
+                    } catch (Exception ignored) {
+                        // listener já removido
+                    }
+                });
+            }
+        }
+        return unregister;
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = GradeRepository.class)
+    static class Config {
+
+        @Bean
+        DataSource dataSource() {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setJdbcUrl(POSTGRES.getJdbcUrl());
+            pool.setUsername(POSTGRES.getUsername());
+            pool.setPassword(POSTGRES.getPassword());
+            pool.setMaximumPoolSize(2);
+
+            Flyway.configure().dataSource(pool).locations("classpath:db/migration").load().migrate();
+            JdbcTemplate jdbc = new JdbcTemplate(pool);
+            jdbc.execute("INSERT INTO grades (student_id, teacher_id, class_id, evaluation_id, grade_value, grade_date, "
+                    + "status, academic_year, academic_semester) "
+                    + "SELECT s, 1, " + CLASS_ID + ", k, ((s * 7 + k * 13) % 101) / 10.0, DATE '2025-02-01' + k, "
+                    + "'CONFIRMED', " + YEAR + ", " + SEMESTER + " "
+                    + "FROM generate_series(1, " + STUDENTS + ") s, generate_series(1, " + GRADES_PER_STUDENT + ") k");
+            jdbc.execute("VACUUM ANALYZE grades");
+            return pool;
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setPackagesToScan("com.distrischool.grade.entity");
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setJpaPropertyMap(Map.of(
+                    "hibernate.hbm2ddl.auto", "none",
+                    "hibernate.jdbc.time_zone", "UTC",
+                    "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
+                    "hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName()));
+            return factory;
+        }
+
+        @Bean
+        JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+    }
+}
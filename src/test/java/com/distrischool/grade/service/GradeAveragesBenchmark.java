@@ -0,0 +1,92 @@
+package com.distrischool.grade.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Média da turma no resumo de notas: redução de streams de BigDecimal (implementação anterior)
+ * contra o kernel de ponto fixo de {@link GradeAverages}.
+ * Executar com: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.distrischool.grade.service.GradeAveragesBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GradeAveragesBenchmark {
+
+    @Param({"30", "1000"})
+    private int students;
+
+    @Param({"3"})
+    private int gradesPerStudent;
+
+    private List<List<BigDecimal>> gradeValues;
+    private int[][] gradeHundredths;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        gradeValues = new ArrayList<>(students);
+        gradeHundredths = new int[students][gradesPerStudent];
+        for (int s = 0; s < students; s++) {
+            List<BigDecimal> grades = new ArrayList<>(gradesPerStudent);
+            for (int g = 0; g < gradesPerStudent; g++) {
+                int hundredths = random.nextInt(1001);
+                grades.add(BigDecimal.valueOf(hundredths, 2));
+                gradeHundredths[s][g] = hundredths;
+            }
+            gradeValues.add(grades);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalStreams() {
+        List<BigDecimal> studentAverages = gradeValues.stream()
+                .map(grades -> grades.stream()
+                        .filter(Objects::nonNull)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add)
+                        .divide(BigDecimal.valueOf(grades.size()), 2, RoundingMode.HALF_UP))
+                .toList();
+        long studentsWithGrades = studentAverages.stream().filter(Objects::nonNull).count();
+        return studentAverages.stream()
+                .filter(Objects::nonNull)
+                .reduce(BigDecimal.ZERO, BigDecimal::add)
+                .divide(BigDecimal.valueOf(studentsWithGrades), 2, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public BigDecimal fixedPointKernel() {
+        long sum = 0;
+        for (int[] grades : gradeHundredths) {
+            sum += GradeAverages.average(grades, grades.length);
+        }
+        return GradeAverages.fromHundredths(GradeAverages.divideHalfUp(sum, gradeHundredths.length));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GradeAveragesBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,105 @@
+package com.distrischool.grade.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Confere o kernel de ponto fixo contra BigDecimal.divide(divisor, 2, RoundingMode.HALF_UP)
+ */
+class GradeAveragesTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "0.00",
+        "10.00",
+        "0.00 0.00 0.00",
+        "10.00 10.00 10.00",
+        "8.25 8.26",
+        "8.24 8.25",
+        "0.01 0.00",
+        "9.99 10.00",
+        "0.01 0.01 0.00",
+        "1.00 2.00 2.00",
+        "7.33 7.33 7.34",
+        "0.05 0.10 0.00 0.00"
+    })
+    void averageMatchesBigDecimalHalfUp(String grades) {
+        BigDecimal[] values = Arrays.stream(grades.split(" ")).map(BigDecimal::new).toArray(BigDecimal[]::new);
+        int[] hundredths = Arrays.stream(values).mapToInt(GradeAverages::toHundredths).toArray();
+
+        assertEquals(reference(values), GradeAverages.fromHundredths(GradeAverages.average(hundredths, hundredths.length)));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "1001, 2",
+        "1003, 2",
+        "5, 2",
+        "-5, 2",
+        "5, -2",
+        "-7, 2",
+        "2, 3",
+        "1, 3",
+        "-1, 3",
+        "0, 7",
+        "2000, 2"
+    })
+    void divideHalfUpMatchesBigDecimalHalfUp(long dividend, long divisor) {
+        BigDecimal expected = BigDecimal.valueOf(dividend, 2).divide(BigDecimal.valueOf(divisor), 2, RoundingMode.HALF_UP);
+
+        assertEquals(expected, GradeAverages.fromHundredths(GradeAverages.divideHalfUp(dividend, divisor)));
+    }
+
+    @Test
+    void randomizedAveragesMatchBigDecimalHalfUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            int count = 1 + random.nextInt(10);
+            int[] hundredths = new int[count];
+            BigDecimal[] values = new BigDecimal[count];
+            for (int j = 0; j < count; j++) {
+                hundredths[j] = random.nextInt(1001);
+                values[j] = BigDecimal.valueOf(hundredths[j], 2);
+            }
+
+            assertEquals(reference(values), GradeAverages.fromHundredths(GradeAverages.average(hundredths, count)),
+                    () -> "Notas: " + Arrays.toString(values));
+        }
+    }
+
+    @Test
+    void randomizedClassSumsMatchBigDecimalHalfUp() {
+        // Somas de médias de alunos, como as mantidas nos hashes de médias de turma
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            long students = 1 + random.nextInt(5_000);
+            long sum = (long) (random.nextDouble() * 1000 * students);
+            BigDecimal expected = BigDecimal.valueOf(sum, 2).divide(BigDecimal.valueOf(students), 2, RoundingMode.HALF_UP);
+
+            assertEquals(expected, GradeAverages.fromHundredths(GradeAverages.divideHalfUp(sum, students)),
+                    () -> "Soma: " + sum + ", Alunos: " + students);
+        }
+    }
+
+    @Test
+    void toHundredthsRejectsMoreThanTwoDecimals() {
+        assertEquals(825, GradeAverages.toHundredths(new BigDecimal("8.25")));
+        assertEquals(1000, GradeAverages.toHundredths(new BigDecimal("10")));
+        assertThrows(ArithmeticException.class, () -> GradeAverages.toHundredths(new BigDecimal("8.255")));
+    }
+
+    private static BigDecimal reference(BigDecimal... values) {
+        return Arrays.stream(values)
+                .reduce(BigDecimal.ZERO, BigDecimal::add)
+                .divide(BigDecimal.valueOf(values.length), 2, RoundingMode.HALF_UP);
+    }
+}
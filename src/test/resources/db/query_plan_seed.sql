@@ -0,0 +1,45 @@
+-- Massa de dados para o teste de regressão de planos (QueryPlanRegressionTest)
+-- 20 períodos (2016/1 a 2025/2), 1.000 alunos, 200 disciplinas, 40 turmas por período com 25 alunos
+-- e 8 disciplinas cada, 3 avaliações por disciplina e período:
+-- 12.000 avaliações, 480.000 notas e 160.000 assessments, inseridos em ordem cronológica.
+-- IDs de avaliação: período * 600 + (disciplina - 1) * 3 + k + 1; IDs de turma: período * 40 + turma + 1.
+
+INSERT INTO evaluations (name, subject_id, teacher_id, evaluation_date, grade_deadline, evaluation_type,
+                         weight, max_score, status, academic_year, academic_semester)
+SELECT 'Avaliação ' || (k + 1), s, s,
+       make_date(2016 + t / 2, CASE WHEN t % 2 = 0 THEN 3 ELSE 8 END, 10) + k * 30,
+       make_date(2016 + t / 2, CASE WHEN t % 2 = 0 THEN 3 ELSE 8 END, 10) + k * 30 + 14,
+       (ARRAY['EXAM', 'QUIZ', 'PROJECT'])[k + 1],
+       (ARRAY[0.30, 0.30, 0.40])[k + 1],
+       10,
+       CASE WHEN t < 19 THEN 'GRADED' ELSE 'SCHEDULED' END,
+       2016 + t / 2, t % 2 + 1
+FROM generate_series(0, 19) t, generate_series(1, 200) s, generate_series(0, 2) k
+ORDER BY t, s, k;
+
+INSERT INTO grades (student_id, teacher_id, class_id, evaluation_id, grade_value, grade_date, status,
+                    academic_year, academic_semester, deleted_at, deleted_by)
+SELECT x.student_id, x.subject_id, t * 40 + c + 1, t * 600 + (x.subject_id - 1) * 3 + k + 1,
+       ((x.student_id * 7 + x.subject_id * 13 + k * 3 + t) % 101) / 10.0,
+       make_date(2016 + t / 2, CASE WHEN t % 2 = 0 THEN 3 ELSE 8 END, 10) + k * 30,
+       CASE WHEN (x.student_id + x.subject_id + k) % 10 = 0 THEN 'PENDING' ELSE 'CONFIRMED' END,
+       2016 + t / 2, t % 2 + 1,
+       CASE WHEN (x.student_id * 31 + x.subject_id + k) % 50 = 0 THEN TIMESTAMP '2025-06-01 00:00:00' END,
+       CASE WHEN (x.student_id * 31 + x.subject_id + k) % 50 = 0 THEN 'seed' END
+FROM generate_series(0, 19) t, generate_series(0, 39) c, generate_series(0, 24) j,
+     generate_series(0, 7) i, generate_series(0, 2) k,
+     LATERAL (SELECT (c * 25 + j + t * 7) % 1000 + 1 AS student_id, (c * 8 + i) % 200 + 1 AS subject_id) x
+ORDER BY t, c, j, i, k;
+
+INSERT INTO assessments (student_id, subject_id, teacher_id, final_grade, status, academic_year, academic_semester)
+SELECT x.student_id, x.subject_id, x.subject_id,
+       ((x.student_id + x.subject_id + t) % 101) / 10.0,
+       CASE WHEN t < 19 THEN 'FINALIZED' ELSE 'IN_PROGRESS' END,
+       2016 + t / 2, t % 2 + 1
+FROM generate_series(0, 19) t, generate_series(0, 39) c, generate_series(0, 24) j, generate_series(0, 7) i,
+     LATERAL (SELECT (c * 25 + j + t * 7) % 1000 + 1 AS student_id, (c * 8 + i) % 200 + 1 AS subject_id) x
+ORDER BY t, c, j, i;
+
+VACUUM ANALYZE evaluations;
+VACUUM ANALYZE grades;
+VACUUM ANALYZE assessments;